@@ -1,11 +1,14 @@
 package com.empik.apigateway;
 
+import com.empik.apigateway.cache.TaskStatusCacheGatewayFilter;
+import com.empik.apigateway.ratelimit.RateLimitGatewayFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpMethod;
 
 @SpringBootApplication
 @EnableDiscoveryClient
@@ -16,10 +19,19 @@ public class ApiGatewayApplication {
     }
 
     @Bean
-    public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
+    public RouteLocator customRouteLocator(RouteLocatorBuilder builder, RateLimitGatewayFilter rateLimitGatewayFilter,
+                                           TaskStatusCacheGatewayFilter taskStatusCacheGatewayFilter) {
         return builder.routes()
+                .route("coupon-status", r -> r.order(-1)
+                        .method(HttpMethod.GET)
+                        .and().path("/api/coupon/status/**", "/api/coupon/use/status/**")
+                        .filters(f -> f.filter(rateLimitGatewayFilter)
+                                .filter(taskStatusCacheGatewayFilter)
+                                .rewritePath("/api/coupon/(?<segment>.*)", "/${segment}"))
+                        .uri("lb://COUPON-API"))
                 .route("coupon", r -> r.path("/api/coupon/**")
-                        .filters(f -> f.rewritePath("/api/coupon/(?<segment>.*)", "/${segment}"))
+                        .filters(f -> f.filter(rateLimitGatewayFilter)
+                                .rewritePath("/api/coupon/(?<segment>.*)", "/${segment}"))
                         .uri("lb://COUPON-API"))
                 .build();
     }
@@ -0,0 +1,23 @@
+package com.empik.apigateway.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+public class TaskStatusCacheConfig {
+
+    @Value("${gateway.status-cache.max-size:16MB}")
+    private DataSize maxSize;
+
+    @Value("${gateway.status-cache.ttl:10m}")
+    private Duration ttl;
+
+    @Bean
+    public TaskStatusCacheGatewayFilter taskStatusCacheGatewayFilter() {
+        return new TaskStatusCacheGatewayFilter(maxSize.toBytes(), ttl);
+    }
+}
@@ -0,0 +1,156 @@
+package com.empik.apigateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded local cache for coupon-api task status responses. Only answers with an {@code ETag} and a
+ * {@code Surrogate-Control: max-age}, which coupon-api sends for terminal statuses, are stored, for that long and
+ * at most {@code ttl}; pending ones are {@code no-store} and always reach coupon-api. {@code Surrogate-Control}
+ * is meant for the gateway only and is removed before responding. Hits are answered from memory with the
+ * remaining {@code private} max-age, or with 304 when {@code If-None-Match} matches.
+ */
+public class TaskStatusCacheGatewayFilter implements GatewayFilter {
+
+    static final String SURROGATE_CONTROL = "Surrogate-Control";
+
+    private static final int ENTRY_OVERHEAD = 256;
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final Cache<String, CachedResponse> cache;
+    private final LongSupplier clock;
+
+    public TaskStatusCacheGatewayFilter(long maximumBytes, Duration ttl) {
+        this(maximumBytes, ttl, System::nanoTime);
+    }
+
+    TaskStatusCacheGatewayFilter(long maximumBytes, Duration ttl, LongSupplier clock) {
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((String path, CachedResponse response) -> path.length() + response.body().length + ENTRY_OVERHEAD)
+                .expireAfter(new ResponseExpiry(ttl.toNanos()))
+                .ticker(clock::getAsLong)
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+        String path = exchange.getRequest().getPath().value();
+        CachedResponse cached = cache.getIfPresent(path);
+        if (cached != null) {
+            return write(exchange, cached);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        ServerHttpResponseDecorator decorator = new ServerHttpResponseDecorator(response) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                long maxAgeSeconds = surrogateMaxAge(getStatusCode(), getHeaders());
+                getHeaders().remove(SURROGATE_CONTROL);
+                if (maxAgeSeconds <= 0) {
+                    return super.writeWith(body);
+                }
+                long expiresAt = clock.getAsLong() + TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+                return DataBufferUtils.join(Flux.from(body)).flatMap(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    cache.put(path, CachedResponse.of(getStatusCode(), getHeaders(), bytes, expiresAt));
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+        return chain.filter(exchange.mutate().response(decorator).build());
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        long remaining = Math.max(0, cached.expiresAt() - clock.getAsLong());
+        response.getHeaders().setETag(cached.eTag());
+        response.getHeaders().setCacheControl(CacheControl.maxAge(Duration.ofSeconds(TimeUnit.NANOSECONDS.toSeconds(remaining))).cachePrivate());
+        if (exchange.getRequest().getHeaders().getIfNoneMatch().contains(cached.eTag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        if (cached.contentType() != null) {
+            response.getHeaders().set(HttpHeaders.CONTENT_TYPE, cached.contentType());
+        }
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * @return the {@code Surrogate-Control} max-age in seconds, or 0 if the response must not be cached
+     */
+    private static long surrogateMaxAge(HttpStatusCode status, HttpHeaders headers) {
+        String surrogateControl = headers.getFirst(SURROGATE_CONTROL);
+        String cacheControl = headers.getCacheControl();
+        if (status == null || status == HttpStatus.NOT_MODIFIED || headers.getETag() == null || surrogateControl == null
+                || (cacheControl != null && cacheControl.contains("no-store"))) {
+            return 0;
+        }
+        Matcher maxAge = MAX_AGE.matcher(surrogateControl);
+        try {
+            return maxAge.find() ? Long.parseLong(maxAge.group(1)) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Entries live until the origin's max-age runs out, but never longer than the gateway ttl
+    private record ResponseExpiry(long ttlNanos) implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String path, CachedResponse response, long currentTime) {
+            return Math.min(ttlNanos, Math.max(0, response.expiresAt() - currentTime));
+        }
+
+        @Override
+        public long expireAfterUpdate(String path, CachedResponse response, long currentTime, long currentDuration) {
+            return expireAfterCreate(path, response, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String path, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private record CachedResponse(HttpStatusCode status, String eTag, String contentType, byte[] body, long expiresAt) {
+
+        static CachedResponse of(HttpStatusCode status, HttpHeaders headers, byte[] body, long expiresAt) {
+            return new CachedResponse(status, headers.getETag(), headers.getFirst(HttpHeaders.CONTENT_TYPE), body, expiresAt);
+        }
+    }
+}
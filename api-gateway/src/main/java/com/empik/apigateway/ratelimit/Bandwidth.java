@@ -0,0 +1,27 @@
+package com.empik.apigateway.ratelimit;
+
+/**
+ * Token bucket holding up to {@code capacity} tokens, refilled at {@code tokensPerSecond}.
+ */
+public record Bandwidth(int capacity, double tokensPerSecond) {
+
+    public Bandwidth {
+        if (capacity < 1 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid bandwidth: " + capacity + " tokens at " + tokensPerSecond + "/s");
+        }
+    }
+
+    /**
+     * Time needed to refill a single token.
+     */
+    public long intervalNanos() {
+        return Math.max(1, Math.round(1_000_000_000d / tokensPerSecond));
+    }
+
+    /**
+     * How far ahead of the clock the bucket may be drawn, i.e. the burst on top of the first token.
+     */
+    public long toleranceNanos() {
+        return intervalNanos() * (capacity - 1);
+    }
+}
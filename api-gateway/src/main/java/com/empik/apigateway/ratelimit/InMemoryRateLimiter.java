@@ -0,0 +1,83 @@
+package com.empik.apigateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token buckets local to this gateway node.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the theoretical arrival time of the next request (GCRA), which
+ * is equivalent to a token bucket without storing the token count. A rejected request only reads the bucket.
+ * A bucket whose arrival time has passed is full and indistinguishable from a missing one, so once
+ * {@code maxKeys} is reached such buckets are swept, at most once per second.
+ */
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private static final Mono<Long> ADMITTED = Mono.just(0L);
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    public InMemoryRateLimiter(int maxKeys) {
+        this(maxKeys, System::nanoTime);
+    }
+
+    InMemoryRateLimiter(int maxKeys, LongSupplier clock) {
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+        this.lastSweep.set(clock.getAsLong() - SWEEP_INTERVAL);
+    }
+
+    @Override
+    public Mono<Long> tryAcquire(String key, Bandwidth bandwidth) {
+        long wait = acquire(key, bandwidth);
+        return wait == 0 ? ADMITTED : Mono.just(wait);
+    }
+
+    /**
+     * Synchronous variant of {@link #tryAcquire}, returning {@code 0} or the nanoseconds to wait.
+     */
+    public long acquire(String key, Bandwidth bandwidth) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                sweep(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        long interval = bandwidth.intervalNanos();
+        long tolerance = bandwidth.toleranceNanos();
+        while (true) {
+            long tat = bucket.get();
+            long start = tat - now > 0 ? tat : now;
+            long wait = start - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+}
@@ -0,0 +1,65 @@
+package com.empik.apigateway.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.util.unit.DataSize;
+
+@Configuration
+public class RateLimitConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitConfig.class);
+
+    @Value("${gateway.rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${gateway.rate-limit.ip.capacity:50}")
+    private int ipCapacity;
+
+    @Value("${gateway.rate-limit.ip.tokens-per-second:20}")
+    private double ipTokensPerSecond;
+
+    @Value("${gateway.rate-limit.user.capacity:10}")
+    private int userCapacity;
+
+    @Value("${gateway.rate-limit.user.tokens-per-second:1}")
+    private double userTokensPerSecond;
+
+    @Value("${gateway.rate-limit.trusted-proxies:0}")
+    private int trustedProxies;
+
+    @Value("${gateway.rate-limit.max-body-size:8KB}")
+    private DataSize maxBodySize;
+
+    /**
+     * The default keeps the buckets in memory, so each node enforces the limits on its own share of the traffic.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+    public RateLimiter inMemoryRateLimiter() {
+        return new InMemoryRateLimiter(maxKeys);
+    }
+
+    @Bean
+    public RateLimitGatewayFilter rateLimitGatewayFilter(RateLimiter rateLimiter, ObjectMapper objectMapper) {
+        return new RateLimitGatewayFilter(rateLimiter, objectMapper,
+                new Bandwidth(ipCapacity, ipTokensPerSecond), new Bandwidth(userCapacity, userTokensPerSecond),
+                trustedProxies, maxBodySize.toBytes());
+    }
+
+    /**
+     * {@code gateway.rate-limit.store=redis} shares the buckets between gateway nodes. Only this bean uses the
+     * Redis template, and Lettuce connects on first use, so the default mode never opens a Redis connection.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.store", havingValue = "redis")
+    public RateLimiter sharedRateLimiter(ReactiveStringRedisTemplate redisTemplate) {
+        logger.info("Using Redis rate limiter");
+        return new RedisRateLimiter(redisTemplate);
+    }
+}
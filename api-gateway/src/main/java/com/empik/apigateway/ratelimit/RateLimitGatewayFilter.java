@@ -0,0 +1,138 @@
+package com.empik.apigateway.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds abusive clients before they reach coupon-api. Every request takes a token from the bucket of its client IP;
+ * coupon use requests additionally take one from the bucket of the {@code userId} in their body, which is only read
+ * once the IP bucket has admitted the request. Rejections are answered with 429 and {@code Retry-After}. A use
+ * request body is buffered only with a {@code Content-Length} of at most {@code maxBodyBytes}; others get 411 or 413.
+ */
+public class RateLimitGatewayFilter implements GatewayFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitGatewayFilter.class);
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final Bandwidth ipBandwidth;
+    private final Bandwidth userBandwidth;
+    private final int trustedProxies;
+    private final long maxBodyBytes;
+
+    public RateLimitGatewayFilter(RateLimiter rateLimiter, ObjectMapper objectMapper,
+                                  Bandwidth ipBandwidth, Bandwidth userBandwidth,
+                                  int trustedProxies, long maxBodyBytes) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.ipBandwidth = ipBandwidth;
+        this.userBandwidth = userBandwidth;
+        this.trustedProxies = trustedProxies;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String ip = getClientIpAddress(exchange.getRequest(), trustedProxies);
+        return rateLimiter.tryAcquire("ip:" + ip, ipBandwidth).flatMap(wait -> {
+            if (wait > 0) {
+                logger.debug("Rate limited client - IP: {}", ip);
+                return reject(exchange, wait);
+            }
+            if (!isUseRequest(exchange.getRequest())) {
+                return chain.filter(exchange);
+            }
+            long contentLength = exchange.getRequest().getHeaders().getContentLength();
+            if (contentLength < 0 || contentLength > maxBodyBytes) {
+                exchange.getResponse().setStatusCode(contentLength < 0 ? HttpStatus.LENGTH_REQUIRED : HttpStatus.PAYLOAD_TOO_LARGE);
+                return exchange.getResponse().setComplete();
+            }
+            return ServerWebExchangeUtils.cacheRequestBodyAndRequest(exchange,
+                    request -> filterUser(exchange.mutate().request(request).build(), chain));
+        });
+    }
+
+    private Mono<Void> filterUser(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String userId = readUserId(exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR));
+        if (userId == null) {
+            return chain.filter(exchange);
+        }
+        return rateLimiter.tryAcquire("user:" + userId, userBandwidth).flatMap(wait -> {
+            if (wait > 0) {
+                logger.debug("Rate limited user - UserId: {}", userId);
+                return reject(exchange, wait);
+            }
+            return chain.filter(exchange);
+        });
+    }
+
+    private String readUserId(DataBuffer body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            JsonNode userId = objectMapper.readTree(body.toString(StandardCharsets.UTF_8)).get("userId");
+            return userId != null && userId.isTextual() && !userId.asText().isEmpty() ? userId.asText() : null;
+        } catch (Exception e) {
+            // Malformed bodies are rejected by coupon-api validation
+            return null;
+        }
+    }
+
+    private static boolean isUseRequest(ServerHttpRequest request) {
+        return HttpMethod.POST.equals(request.getMethod()) && request.getPath().value().endsWith("/use");
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, long waitNanos) {
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                Long.toString(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        return exchange.getResponse().setComplete();
+    }
+
+    /**
+     * Each of the {@code trustedProxies} proxies in front of the gateway appends the address it was connected from
+     * to {@code X-Forwarded-For}, so the client is that many entries from the right; anything further left was
+     * sent by the client itself. Without trusted proxies, or with fewer entries than proxies, the header is
+     * ignored and the remote address is used.
+     */
+    static String getClientIpAddress(ServerHttpRequest request, int trustedProxies) {
+        if (trustedProxies > 0) {
+            List<String> hops = new ArrayList<>();
+            for (String header : request.getHeaders().getOrEmpty("X-Forwarded-For")) {
+                for (String hop : header.split(",")) {
+                    if (!hop.isBlank()) {
+                        hops.add(hop.trim());
+                    }
+                }
+            }
+            if (hops.size() >= trustedProxies) {
+                return hops.get(hops.size() - trustedProxies);
+            }
+        }
+
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.empik.apigateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+public interface RateLimiter {
+
+    /**
+     * Takes one token from the bucket under {@code key}. Emits {@code 0} when the request is admitted,
+     * otherwise the nanoseconds until the next token becomes available.
+     */
+    Mono<Long> tryAcquire(String key, Bandwidth bandwidth);
+}
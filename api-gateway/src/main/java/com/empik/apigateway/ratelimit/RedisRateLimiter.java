@@ -0,0 +1,54 @@
+package com.empik.apigateway.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Token buckets shared by all gateway nodes. Runs the same GCRA as {@link InMemoryRateLimiter} in a Lua script,
+ * timed by the Redis clock so that node clocks need not agree. Fails open when Redis is unavailable.
+ */
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisRateLimiter.class);
+
+    private static final String KEY_PREFIX = "rate-limit:";
+
+    // Times in microseconds; ARGV[1] is the refill interval, ARGV[2] the burst tolerance
+    private static final RedisScript<Long> SCRIPT = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+            if tat < now then tat = now end
+            local wait = tat - now - tonumber(ARGV[2])
+            if wait > 0 then return wait end
+            tat = tat + tonumber(ARGV[1])
+            redis.call('SET', KEYS[1], string.format('%d', tat), 'PX', math.ceil((tat - now) / 1000))
+            return 0
+            """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    public RedisRateLimiter(ReactiveStringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Mono<Long> tryAcquire(String key, Bandwidth bandwidth) {
+        List<String> args = List.of(
+                Long.toString(Math.max(1, bandwidth.intervalNanos() / 1_000)),
+                Long.toString(bandwidth.toleranceNanos() / 1_000));
+        return redisTemplate.execute(SCRIPT, List.of(KEY_PREFIX + key), args)
+                .next()
+                .map(waitMicros -> waitMicros * 1_000)
+                .defaultIfEmpty(0L)
+                .onErrorResume(e -> {
+                    logger.warn("Rate limiter unavailable, admitting request - Key: {}", key, e);
+                    return Mono.just(0L);
+                });
+    }
+}
@@ -0,0 +1,108 @@
+package com.empik.apigateway.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TaskStatusCacheGatewayFilterTest {
+
+    private static final String PATH = "/api/coupon/use/status/0f8fad5b-d9cb-469f-a165-70867728950e";
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    private TaskStatusCacheGatewayFilter filter() {
+        return new TaskStatusCacheGatewayFilter(1024 * 1024, Duration.ofMinutes(1), now::get);
+    }
+
+    private GatewayFilterChain upstream(HttpStatus status, CacheControl cacheControl, String eTag, String body) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(status);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            response.getHeaders().setCacheControl(cacheControl);
+            if (eTag != null) {
+                response.getHeaders().setETag(eTag);
+                response.getHeaders().set(TaskStatusCacheGatewayFilter.SURROGATE_CONTROL, "max-age=3600");
+            }
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+
+    @Test
+    void servesTerminalStatusFromCache() {
+        TaskStatusCacheGatewayFilter filter = filter();
+        GatewayFilterChain chain = upstream(HttpStatus.BAD_REQUEST, CacheControl.maxAge(Duration.ofHours(1)).cachePrivate(),
+                "\"LIMIT_REACHED\"", "{\"status\":\"LIMIT_REACHED\"}");
+
+        MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        filter.filter(first, chain).block();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        MockServerWebExchange repeat = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        filter.filter(repeat, chain).block();
+
+        assertEquals(1, upstreamCalls.get());
+        assertNull(first.getResponse().getHeaders().getFirst(TaskStatusCacheGatewayFilter.SURROGATE_CONTROL));
+        assertEquals("max-age=3590, private", repeat.getResponse().getHeaders().getCacheControl());
+        assertEquals(HttpStatus.BAD_REQUEST, repeat.getResponse().getStatusCode());
+        assertEquals("\"LIMIT_REACHED\"", repeat.getResponse().getHeaders().getETag());
+        assertEquals("{\"status\":\"LIMIT_REACHED\"}", repeat.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWithNotModified() {
+        TaskStatusCacheGatewayFilter filter = filter();
+        GatewayFilterChain chain = upstream(HttpStatus.OK, CacheControl.maxAge(Duration.ofHours(1)).cachePrivate(),
+                "\"SUCCESS\"", "{\"status\":\"SUCCESS\"}");
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get(PATH)), chain).block();
+        MockServerWebExchange conditional = MockServerWebExchange.from(MockServerHttpRequest.get(PATH)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"SUCCESS\""));
+        filter.filter(conditional, chain).block();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, conditional.getResponse().getStatusCode());
+    }
+
+    @Test
+    void keepsEntriesAtMostForTheGatewayTtl() {
+        TaskStatusCacheGatewayFilter filter = filter();
+        GatewayFilterChain chain = upstream(HttpStatus.OK, CacheControl.maxAge(Duration.ofHours(1)).cachePrivate(),
+                "\"SUCCESS\"", "{\"status\":\"SUCCESS\"}");
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get(PATH)), chain).block();
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1) + 1);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get(PATH)), chain).block();
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void doesNotCachePendingStatus() {
+        TaskStatusCacheGatewayFilter filter = filter();
+        GatewayFilterChain chain = upstream(HttpStatus.ACCEPTED, CacheControl.noStore(), null, "{\"status\":\"PENDING\"}");
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get(PATH)), chain).block();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get(PATH)), chain).block();
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0, filter.size());
+    }
+}
@@ -0,0 +1,71 @@
+package com.empik.apigateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void admitsBurstThenRejectsUntilRefill() {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter(100, now::get);
+        Bandwidth bandwidth = new Bandwidth(3, 10);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire("ip:1.2.3.4", bandwidth));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.acquire("ip:1.2.3.4", bandwidth));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, limiter.acquire("ip:1.2.3.4", bandwidth));
+        assertTrue(limiter.acquire("ip:1.2.3.4", bandwidth) > 0);
+    }
+
+    @Test
+    void keepsBucketsApart() {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter(100, now::get);
+        Bandwidth bandwidth = new Bandwidth(1, 1);
+
+        assertEquals(0, limiter.acquire("user:a", bandwidth));
+        assertTrue(limiter.acquire("user:a", bandwidth) > 0);
+        assertEquals(0, limiter.acquire("user:b", bandwidth));
+    }
+
+    @Test
+    void refillsNoMoreThanCapacity() {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter(100, now::get);
+        Bandwidth bandwidth = new Bandwidth(2, 1);
+
+        assertEquals(0, limiter.acquire("ip:1.2.3.4", bandwidth));
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertEquals(0, limiter.acquire("ip:1.2.3.4", bandwidth));
+        assertEquals(0, limiter.acquire("ip:1.2.3.4", bandwidth));
+        assertTrue(limiter.acquire("ip:1.2.3.4", bandwidth) > 0);
+    }
+
+    @Test
+    void sweepsRefilledBucketsWhenFull() {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter(2, now::get);
+        Bandwidth bandwidth = new Bandwidth(1, 1);
+
+        limiter.acquire("ip:a", bandwidth);
+        limiter.acquire("ip:b", bandwidth);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        limiter.acquire("ip:c", bandwidth);
+
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void rejectsInvalidBandwidth() {
+        assertThrows(IllegalArgumentException.class, () -> new Bandwidth(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Bandwidth(1, 0));
+    }
+}
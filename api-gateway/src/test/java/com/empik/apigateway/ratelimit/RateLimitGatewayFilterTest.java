@@ -0,0 +1,53 @@
+package com.empik.apigateway.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitGatewayFilterTest {
+
+    private static final InetSocketAddress PROXY = new InetSocketAddress("10.0.0.1", 40000);
+
+    @Test
+    void takesTheRightMostUntrustedForwardedHop() {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/coupon/status/1")
+                .remoteAddress(PROXY)
+                .header("X-Forwarded-For", "6.6.6.6, 203.0.113.7")
+                .build();
+
+        assertEquals("203.0.113.7", RateLimitGatewayFilter.getClientIpAddress(request, 1));
+        assertEquals("6.6.6.6", RateLimitGatewayFilter.getClientIpAddress(request, 2));
+        assertEquals("10.0.0.1", RateLimitGatewayFilter.getClientIpAddress(request, 3));
+        assertEquals("10.0.0.1", RateLimitGatewayFilter.getClientIpAddress(request, 0));
+    }
+
+    @Test
+    void rejectsUseBodiesAboveTheSizeLimit() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        GatewayFilterChain chain = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.empty();
+        };
+        RateLimitGatewayFilter filter = new RateLimitGatewayFilter(new InMemoryRateLimiter(100), new ObjectMapper(),
+                new Bandwidth(10, 10), new Bandwidth(10, 10), 0, 64);
+
+        MockServerWebExchange tooLarge = MockServerWebExchange.from(MockServerHttpRequest.post("/api/coupon/use")
+                .remoteAddress(PROXY).contentLength(65).body("x".repeat(65)));
+        filter.filter(tooLarge, chain).block();
+        String body = "{\"userId\":\"user-1\"}";
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.post("/api/coupon/use")
+                .remoteAddress(PROXY).contentLength(body.length()).body(body)), chain).block();
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, tooLarge.getResponse().getStatusCode());
+        assertEquals(1, upstreamCalls.get());
+    }
+}
@@ -0,0 +1,107 @@
+package com.empik.benchmarks;
+
+import com.empik.shared.codec.CouponEventCodecs;
+import com.empik.shared.event.CouponBulkCreateRequestEvent;
+import com.empik.shared.event.CouponBulkRow;
+import com.empik.shared.event.CouponUseRequestEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON payloads the Kafka {@code JsonSerializer} produces with {@link CouponEventCodecs} for the
+ * hottest event, a use request, and for a bulk create batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CouponEventCodecBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CouponUseRequestEvent useRequest;
+    private CouponBulkCreateRequestEvent bulkRequest;
+    private byte[] useRequestJson;
+    private byte[] useRequestBinary;
+    private byte[] bulkRequestJson;
+    private byte[] bulkRequestBinary;
+
+    @Setup
+    public void setUp() throws Exception {
+        useRequest = new CouponUseRequestEvent();
+        useRequest.setRequestId(UUID.randomUUID());
+        useRequest.setCode("SUMMER2025");
+        useRequest.setUserId("user-1234567");
+        useRequest.setIpAddress("203.0.113.42");
+
+        List<CouponBulkRow> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rows.add(new CouponBulkRow("BULK" + i, "PL", 100));
+        }
+        bulkRequest = new CouponBulkCreateRequestEvent();
+        bulkRequest.setJobId(UUID.randomUUID());
+        bulkRequest.setFirstRow(0);
+        bulkRequest.setRows(rows);
+
+        useRequestJson = objectMapper.writeValueAsBytes(useRequest);
+        useRequestBinary = CouponEventCodecs.USE_REQUEST.encode(useRequest);
+        bulkRequestJson = objectMapper.writeValueAsBytes(bulkRequest);
+        bulkRequestBinary = CouponEventCodecs.BULK_CREATE_REQUEST.encode(bulkRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeUseRequestJson() throws Exception {
+        return objectMapper.writeValueAsBytes(useRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeUseRequestBinary() {
+        return CouponEventCodecs.USE_REQUEST.encode(useRequest);
+    }
+
+    @Benchmark
+    public CouponUseRequestEvent decodeUseRequestJson() throws Exception {
+        return objectMapper.readValue(useRequestJson, CouponUseRequestEvent.class);
+    }
+
+    @Benchmark
+    public CouponUseRequestEvent decodeUseRequestBinary() {
+        return CouponEventCodecs.USE_REQUEST.decode(useRequestBinary);
+    }
+
+    @Benchmark
+    public byte[] encodeBulkRequestJson() throws Exception {
+        return objectMapper.writeValueAsBytes(bulkRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeBulkRequestBinary() {
+        return CouponEventCodecs.BULK_CREATE_REQUEST.encode(bulkRequest);
+    }
+
+    @Benchmark
+    public CouponBulkCreateRequestEvent decodeBulkRequestJson() throws Exception {
+        return objectMapper.readValue(bulkRequestJson, CouponBulkCreateRequestEvent.class);
+    }
+
+    @Benchmark
+    public CouponBulkCreateRequestEvent decodeBulkRequestBinary() {
+        return CouponEventCodecs.BULK_CREATE_REQUEST.decode(bulkRequestBinary);
+    }
+}
@@ -0,0 +1,30 @@
+package com.empik.couponapi.actuator;
+
+import com.empik.couponapi.service.AdmissionControl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/admission}: admission thresholds, current in-flight count and consumer lag, and rejection
+ * counters. Needs {@code admission} in {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "admission")
+public class AdmissionEndpoint {
+
+    private final AdmissionControl admissionControl;
+
+    @Autowired
+    public AdmissionEndpoint(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @ReadOperation
+    public Map<String, Object> admission() {
+        return admissionControl.state();
+    }
+}
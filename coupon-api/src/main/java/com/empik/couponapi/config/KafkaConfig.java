@@ -1,19 +1,34 @@
 package com.empik.couponapi.config;
 
+import com.empik.shared.codec.CouponEventCodecs;
+import com.empik.shared.codec.EventCodec;
+import com.empik.shared.codec.kafka.BinaryEventDeserializer;
+import com.empik.shared.codec.kafka.BinaryEventSerializer;
+import com.empik.shared.event.CouponBulkCreateResponseEvent;
+import com.empik.shared.event.CouponCreateResponseEvent;
+import com.empik.shared.event.CouponStateEvent;
+import com.empik.shared.event.CouponUseResponseEvent;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.support.serializer.DelegatingByTopicDeserializer;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 @Configuration
 public class KafkaConfig {
@@ -24,6 +39,57 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String kafkaServiceGroup;
 
+    @Value("${kafka.topics.coupon-create-response}")
+    private String couponCreateResponseTopic;
+
+    @Value("${kafka.topics.coupon-use-response}")
+    private String couponUseResponseTopic;
+
+    @Value("${kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${coupon-api.reply.partitions:1}")
+    private int replyPartitions;
+
+    @Value("${coupon-api.state-view.idle-interval-ms:1000}")
+    private long stateViewIdleInterval;
+
+    @Value("${kafka.topics.coupon-create-request}")
+    private String couponCreateRequestTopic;
+
+    @Value("${kafka.topics.coupon-use-request}")
+    private String couponUseRequestTopic;
+
+    @Value("${kafka.topics.coupon-state:coupon-state}")
+    private String couponStateTopic;
+
+    @Value("${kafka.topics.coupon-bulk-create-request:coupon-bulk-create-request}")
+    private String couponBulkCreateRequestTopic;
+
+    @Value("${kafka.topics.coupon-bulk-create-response:coupon-bulk-create-response}")
+    private String couponBulkCreateResponseTopic;
+
+    @Value("${kafka.topics.coupon-bulk-create-response-partitions:3}")
+    private int couponBulkCreateResponsePartitions;
+
+    @Value("${kafka.codec:json}")
+    private String codec;
+
+    @Bean
+    public NewTopic couponCreateResponseTopic() {
+        return TopicBuilder.name(couponCreateResponseTopic).partitions(replyPartitions).build();
+    }
+
+    @Bean
+    public NewTopic couponUseResponseTopic() {
+        return TopicBuilder.name(couponUseResponseTopic).partitions(replyPartitions).build();
+    }
+
+    @Bean
+    public NewTopic couponBulkCreateResponseTopic() {
+        return TopicBuilder.name(couponBulkCreateResponseTopic).partitions(couponBulkCreateResponsePartitions).build();
+    }
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -31,7 +97,17 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         configProps.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, "org.apache.kafka.clients.producer.internals.DefaultPartitioner");
-        return new DefaultKafkaProducerFactory<>(configProps);
+        if (!"binary".equalsIgnoreCase(codec)) {
+            return new DefaultKafkaProducerFactory<>(configProps);
+        }
+
+        // Request events use the shared binary codecs, chosen by topic
+        Map<Pattern, Serializer<?>> delegates = Map.of(
+                topic(couponCreateRequestTopic), new BinaryEventSerializer<>(CouponEventCodecs.CREATE_REQUEST),
+                topic(couponUseRequestTopic), new BinaryEventSerializer<>(CouponEventCodecs.USE_REQUEST),
+                topic(couponBulkCreateRequestTopic), new BinaryEventSerializer<>(CouponEventCodecs.BULK_CREATE_REQUEST));
+        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(),
+                new DelegatingByTopicSerializer(delegates, new JsonSerializer<>()));
     }
 
     @Bean
@@ -49,9 +125,35 @@ public class KafkaConfig {
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        if (!"binary".equalsIgnoreCase(codec)) {
+            return new DefaultKafkaConsumerFactory<>(props);
+        }
+        DefaultKafkaConsumerFactory<String, Object> factory =
+                new DefaultKafkaConsumerFactory<>(props, StringDeserializer::new, this::binaryValueDeserializer);
+        factory.setConfigureDeserializers(false);
+        return factory;
+    }
+
+    /**
+     * Per-topic binary decoding without type headers; records lacking the binary magic byte are read as JSON.
+     */
+    private Deserializer<Object> binaryValueDeserializer() {
+        Map<Pattern, Deserializer<?>> delegates = Map.of(
+                topic(couponCreateResponseTopic), binaryDeserializer(CouponEventCodecs.CREATE_RESPONSE, CouponCreateResponseEvent.class),
+                topic(couponUseResponseTopic), binaryDeserializer(CouponEventCodecs.USE_RESPONSE, CouponUseResponseEvent.class),
+                topic(couponStateTopic), binaryDeserializer(CouponEventCodecs.STATE, CouponStateEvent.class),
+                topic(couponBulkCreateResponseTopic), binaryDeserializer(CouponEventCodecs.BULK_CREATE_RESPONSE, CouponBulkCreateResponseEvent.class));
+        return new DelegatingByTopicDeserializer(delegates, new JsonDeserializer<>().trustedPackages("*"));
+    }
 
-        return new DefaultKafkaConsumerFactory<>(props);
+    private static <T> Deserializer<T> binaryDeserializer(EventCodec<T> codec, Class<T> type) {
+        return new BinaryEventDeserializer<>(codec, new JsonDeserializer<>(type, false));
+    }
+
+    private static Pattern topic(String name) {
+        return Pattern.compile(Pattern.quote(name));
     }
 
     @Bean
@@ -62,4 +164,13 @@ public class KafkaConfig {
         factory.setConcurrency(3);
         return factory;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> couponStateKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setIdleEventInterval(stateViewIdleInterval);
+        return factory;
+    }
+}
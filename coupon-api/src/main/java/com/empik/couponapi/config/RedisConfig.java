@@ -1,39 +1,40 @@
 package com.empik.couponapi.config;
 
 
-import com.empik.shared.event.CouponCreateResponseEvent;
-import com.empik.shared.event.CouponUseResponseEvent;
+import com.empik.couponapi.service.TaskCompletionNotifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 @Configuration
 public class RedisConfig {
 
     @Bean
-    public RedisTemplate<String, CouponCreateResponseEvent> createRedisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, CouponCreateResponseEvent> template = new RedisTemplate<>();
-        configureTemplate(template, connectionFactory);
+    public RedisTemplate<byte[], byte[]> taskStatusRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<byte[], byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setEnableDefaultSerializer(false);
+        template.setKeySerializer(RedisSerializer.byteArray());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
         return template;
     }
 
     @Bean
-    public RedisTemplate<String, CouponUseResponseEvent> useRedisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, CouponUseResponseEvent> template = new RedisTemplate<>();
-        configureTemplate(template, connectionFactory);
-        return template;
-    }
-
-    private void configureTemplate(RedisTemplate<String, ?> template, RedisConnectionFactory connectionFactory) {
-        template.setConnectionFactory(connectionFactory);
-        template.setKeySerializer(new StringRedisSerializer());
-        template.setHashKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setDefaultSerializer(new GenericJackson2JsonRedisSerializer());
-        template.afterPropertiesSet();
+    @ConditionalOnProperty(name = "coupon-api.task.redis-notify.enabled", havingValue = "true")
+    public RedisMessageListenerContainer taskCompletionListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TaskCompletionNotifier taskCompletionNotifier,
+            @Value("${coupon-api.task.redis-notify.channel:coupon-api:task-completed}") String channel) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(taskCompletionNotifier, new ChannelTopic(channel));
+        return container;
     }
-}
\ No newline at end of file
+}
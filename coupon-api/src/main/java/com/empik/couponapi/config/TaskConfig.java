@@ -0,0 +1,60 @@
+package com.empik.couponapi.config;
+
+import com.empik.couponapi.service.OffHeapTaskStatusStore;
+import com.empik.couponapi.service.PendingTaskRegistry;
+import com.empik.couponapi.service.RedisTaskStatusStore;
+import com.empik.couponapi.service.TaskStatusStore;
+import com.empik.couponapi.service.TieredTaskStatusStore;
+import com.empik.shared.event.CouponCreateResponseEvent;
+import com.empik.shared.event.CouponUseResponseEvent;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class TaskConfig {
+
+    @Value("${coupon-api.task-store:redis}")
+    private String taskStore;
+
+    @Value("${coupon-api.task.pending-ttl:5m}")
+    private Duration pendingTtl;
+
+    @Value("${coupon-api.task.terminal-ttl:1h}")
+    private Duration terminalTtl;
+
+    @Value("${coupon-api.task.off-heap.capacity:1000000}")
+    private int offHeapCapacity;
+
+    @Bean
+    public PendingTaskRegistry<CouponCreateResponseEvent> pendingCreateTasks() {
+        return new PendingTaskRegistry<>();
+    }
+
+    @Bean
+    public PendingTaskRegistry<CouponUseResponseEvent> pendingUseTasks() {
+        return new PendingTaskRegistry<>();
+    }
+
+    /**
+     * {@code off-heap} keeps statuses in this instance only and never resolves the Redis template; {@code tiered}
+     * adds Redis behind it so {@code /status} can be answered by any instance. Either way coupon-api itself still
+     * needs Redis for bulk jobs and the task completion channel.
+     */
+    @Bean
+    public TaskStatusStore taskStatusStore(@Qualifier("taskStatusRedisTemplate") ObjectProvider<RedisTemplate<byte[], byte[]>> taskStatusRedisTemplate) {
+        return switch (taskStore.toLowerCase()) {
+            case "redis" -> new RedisTaskStatusStore(taskStatusRedisTemplate.getObject(), pendingTtl, terminalTtl);
+            case "off-heap" -> new OffHeapTaskStatusStore(offHeapCapacity, pendingTtl, terminalTtl);
+            case "tiered" -> new TieredTaskStatusStore(
+                    new OffHeapTaskStatusStore(offHeapCapacity, pendingTtl, terminalTtl),
+                    new RedisTaskStatusStore(taskStatusRedisTemplate.getObject(), pendingTtl, terminalTtl));
+            default -> throw new IllegalArgumentException("Unknown coupon-api.task-store: " + taskStore);
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.empik.couponapi.controller;
+
+import com.empik.couponapi.dto.BulkJobResponseDto;
+import com.empik.couponapi.service.BulkCouponService;
+import com.empik.couponapi.service.BulkCouponService.Format;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/bulk")
+public class BulkCouponController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_ROWS_PER_PAGE = 10_000;
+
+    private final BulkCouponService bulkCouponService;
+    Logger logger = LoggerFactory.getLogger(BulkCouponController.class);
+
+    @Autowired
+    public BulkCouponController(BulkCouponService bulkCouponService) {
+        this.bulkCouponService = bulkCouponService;
+    }
+
+    /**
+     * Accepts one coupon per line, as NDJSON objects like the single create request or as
+     * {@code code,countryCode,maxUsage} CSV, and answers with the job id once the whole body is forwarded.
+     */
+    @PostMapping(consumes = {NDJSON, "text/csv"})
+    public ResponseEntity<BulkJobResponseDto> createCoupons(HttpServletRequest httpRequest) throws IOException {
+        Format format = MediaType.parseMediaType(httpRequest.getContentType()).isCompatibleWith(MediaType.parseMediaType(NDJSON))
+                ? Format.NDJSON
+                : Format.CSV;
+        BulkJobResponseDto response = bulkCouponService.submit(httpRequest.getInputStream(), format);
+        logger.info("Bulk create request accepted - JobId: {}, Rows: {}", response.getRequestId(), response.getTotalRows());
+        return ResponseEntity.accepted()
+                .location(URI.create("/bulk/" + response.getRequestId()))
+                .body(response);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BulkJobResponseDto> getJob(@PathVariable UUID jobId,
+                                                     @RequestParam(defaultValue = "0") int offset,
+                                                     @RequestParam(defaultValue = "1000") int limit) {
+        if (offset < 0 || limit < 0 || limit > MAX_ROWS_PER_PAGE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        BulkJobResponseDto response = bulkCouponService.getJob(jobId, offset, limit);
+        return ResponseEntity.status(response.isComplete() ? HttpStatus.OK : HttpStatus.ACCEPTED).body(response);
+    }
+}
@@ -4,17 +4,25 @@ import com.empik.couponapi.dto.CouponCreateRequestDto;
 import com.empik.couponapi.dto.CouponCreateResponseDto;
 import com.empik.couponapi.dto.CouponUseRequestDto;
 import com.empik.couponapi.dto.CouponUseResponseDto;
+import com.empik.couponapi.exception.TooManyRequestsException;
 import com.empik.couponapi.service.CouponApiService;
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static com.empik.couponapi.util.IpUtil.getClientIpAddress;
 
@@ -22,7 +30,12 @@ import static com.empik.couponapi.util.IpUtil.getClientIpAddress;
 @RestController
 public class CouponApiController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String SURROGATE_CONTROL_HEADER = "Surrogate-Control";
+
     private final CouponApiService couponApiService;
+    @Value("${coupon-api.web.async:true}")
+    private boolean asyncEnabled;
     Logger logger = LoggerFactory.getLogger(CouponApiController.class);
 
     @Autowired
@@ -31,56 +44,53 @@ public class CouponApiController {
     }
 
     @PostMapping
-    public ResponseEntity<CouponCreateResponseDto> createCoupon(@Valid @RequestBody CouponCreateRequestDto request) {
+    public CompletableFuture<ResponseEntity<CouponCreateResponseDto>> createCoupon(@Valid @RequestBody CouponCreateRequestDto request,
+                                                                                @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         try {
             logger.debug("Received create coupon request: " + request.toString());
-            CouponCreateResponseDto response = couponApiService.createCoupon(request);
-            logger.info("Create coupon request processed - RequestId: {}, Status: {}",
-                    response.getRequestId(), response.getStatus());
-
-
-            HttpStatus status = switch (response.getStatus()) {
-                case CREATED -> HttpStatus.CREATED;
-                case ALREADY_EXISTS -> HttpStatus.CONFLICT;
-                case FAILED -> HttpStatus.INTERNAL_SERVER_ERROR;
-                default -> HttpStatus.ACCEPTED;
-            };
-
-            return ResponseEntity.status(status).body(response);
+            CompletableFuture<ResponseEntity<CouponCreateResponseDto>> result = couponApiService.createCoupon(request, emptyToNull(idempotencyKey))
+                    .thenApply(this::toCreateResponseEntity)
+                    .exceptionally(e -> {
+                        logger.error("Error processing create coupon request - Code: {}", request.getCode(), e);
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                    });
+            return asyncEnabled ? result : CompletableFuture.completedFuture(result.join());
         } catch (Exception e) {
             logger.error("Error processing create coupon request - Code: {}", request.getCode(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
         }
     }
 
     @PostMapping("/use")
-    public ResponseEntity<CouponUseResponseDto> useCoupon(@Valid @RequestBody CouponUseRequestDto request,
-                                                          HttpServletRequest httpRequest) {
+    public CompletableFuture<ResponseEntity<CouponUseResponseDto>> useCoupon(@Valid @RequestBody CouponUseRequestDto request,
+                                                                             @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                             HttpServletRequest httpRequest) {
         try {
             String ipAddress = getClientIpAddress(httpRequest);
             logger.info("Received use coupon request - Code: {}, UserId: {}, IP: {}",
                     request.getCode(), request.getUserId(), ipAddress);
 
-            CouponUseResponseDto response = couponApiService.useCoupon(request, ipAddress);
-
-            logger.info("Use coupon request processed - RequestId: {}, Status: {}",
-                    response.getRequestId(), response.getStatus());
-
-            HttpStatus status = switch (response.getStatus()) {
-                case SUCCESS -> HttpStatus.OK;
-                case LIMIT_REACHED -> HttpStatus.BAD_REQUEST;
-                case ALREADY_USED -> HttpStatus.BAD_REQUEST;
-                case COUNTRY_NOT_SUPPORTED -> HttpStatus.BAD_REQUEST;
-                case COUNTRY_ERROR -> HttpStatus.BAD_REQUEST;
-                case NOT_EXISTS -> HttpStatus.NOT_FOUND;
-                case FAILED -> HttpStatus.INTERNAL_SERVER_ERROR;
-                case PENDING -> HttpStatus.ACCEPTED;
-                default -> HttpStatus.ACCEPTED;
-            };
-
-            return ResponseEntity.status(status).body(response);
+            CompletableFuture<ResponseEntity<CouponUseResponseDto>> result = couponApiService.useCoupon(request, ipAddress, emptyToNull(idempotencyKey))
+                    .thenApply(this::toUseResponseEntity)
+                    .exceptionally(e -> {
+                        // A coalesced request is shed together with the request it joined
+                        if (e.getCause() instanceof TooManyRequestsException shed) {
+                            throw shed;
+                        }
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                    });
+            return asyncEnabled ? result : CompletableFuture.completedFuture(result.join());
+        } catch (TooManyRequestsException e) {
+            logger.warn("Use coupon request shed - Code: {}, Reason: {}", request.getCode(), e.getMessage());
+            throw e;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TooManyRequestsException shed) {
+                logger.warn("Use coupon request shed - Code: {}, Reason: {}", request.getCode(), shed.getMessage());
+                throw shed;
+            }
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
         }
     }
 
@@ -102,7 +112,8 @@ public class CouponApiController {
                 default -> HttpStatus.ACCEPTED;
             };
 
-            return ResponseEntity.status(status).body(response);
+            return statusResponse(status, response.getStatus().name(), response.getStatus() == CouponCreateStatusEnum.PENDING,
+                    couponApiService.getCreateStatusTtl(requestId), response);
         } catch (Exception e) {
             logger.error("Error retrieving create coupon task status - RequestId: {}", requestId, e);
             throw new RuntimeException(e);
@@ -131,10 +142,65 @@ public class CouponApiController {
                 default -> HttpStatus.ACCEPTED;
             };
 
-            return ResponseEntity.status(status).body(response);
+            return statusResponse(status, response.getStatus().name(), response.getStatus() == CouponUseStatusEnum.PENDING,
+                    couponApiService.getUseStatusTtl(requestId), response);
         } catch (Exception e) {
             logger.error("Error retrieving create coupon task status - RequestId: {}", requestId, e);
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * A terminal status holds only while it is stored: afterwards, or after an off-heap eviction, the task id can
+     * be claimed again. So those answers are {@code private} and may be reused for the remaining store TTL, which
+     * the gateway is told through {@code Surrogate-Control}. Pending answers must be polled again.
+     */
+    private <T> ResponseEntity<T> statusResponse(HttpStatus status, String taskStatus, boolean pending, Duration ttl, T body) {
+        long maxAge = ttl.toSeconds();
+        if (pending || maxAge <= 0) {
+            return ResponseEntity.status(status).cacheControl(CacheControl.noStore()).body(body);
+        }
+        return ResponseEntity.status(status)
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAge)).cachePrivate())
+                .header(SURROGATE_CONTROL_HEADER, "max-age=" + maxAge)
+                .eTag(taskStatus)
+                .body(body);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private ResponseEntity<CouponCreateResponseDto> toCreateResponseEntity(CouponCreateResponseDto response) {
+        logger.info("Create coupon request processed - RequestId: {}, Status: {}",
+                response.getRequestId(), response.getStatus());
+
+        HttpStatus status = switch (response.getStatus()) {
+            case CREATED -> HttpStatus.CREATED;
+            case ALREADY_EXISTS -> HttpStatus.CONFLICT;
+            case FAILED -> HttpStatus.INTERNAL_SERVER_ERROR;
+            default -> HttpStatus.ACCEPTED;
+        };
+
+        return ResponseEntity.status(status).body(response);
+    }
+
+    private ResponseEntity<CouponUseResponseDto> toUseResponseEntity(CouponUseResponseDto response) {
+        logger.info("Use coupon request processed - RequestId: {}, Status: {}",
+                response.getRequestId(), response.getStatus());
+
+        HttpStatus status = switch (response.getStatus()) {
+            case SUCCESS -> HttpStatus.OK;
+            case LIMIT_REACHED -> HttpStatus.BAD_REQUEST;
+            case ALREADY_USED -> HttpStatus.BAD_REQUEST;
+            case COUNTRY_NOT_SUPPORTED -> HttpStatus.BAD_REQUEST;
+            case COUNTRY_ERROR -> HttpStatus.BAD_REQUEST;
+            case NOT_EXISTS -> HttpStatus.NOT_FOUND;
+            case FAILED -> HttpStatus.INTERNAL_SERVER_ERROR;
+            case PENDING -> HttpStatus.ACCEPTED;
+            default -> HttpStatus.ACCEPTED;
+        };
+
+        return ResponseEntity.status(status).body(response);
+    }
 }
\ No newline at end of file
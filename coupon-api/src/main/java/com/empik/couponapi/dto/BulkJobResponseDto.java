@@ -0,0 +1,61 @@
+package com.empik.couponapi.dto;
+
+import java.util.List;
+
+public class BulkJobResponseDto extends BaseResponseDto {
+
+    private Integer totalRows;
+    private long created;
+    private long alreadyExists;
+    private long failed;
+    private boolean complete;
+    private List<BulkRowResultDto> rows;
+
+    public Integer getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(Integer totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getAlreadyExists() {
+        return alreadyExists;
+    }
+
+    public void setAlreadyExists(long alreadyExists) {
+        this.alreadyExists = alreadyExists;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public List<BulkRowResultDto> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<BulkRowResultDto> rows) {
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,33 @@
+package com.empik.couponapi.dto;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+
+public class BulkRowResultDto {
+
+    private int row;
+    private CouponCreateStatusEnum status;
+
+    public BulkRowResultDto() {
+    }
+
+    public BulkRowResultDto(int row, CouponCreateStatusEnum status) {
+        this.row = row;
+        this.status = status;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public CouponCreateStatusEnum getStatus() {
+        return status;
+    }
+
+    public void setStatus(CouponCreateStatusEnum status) {
+        this.status = status;
+    }
+}
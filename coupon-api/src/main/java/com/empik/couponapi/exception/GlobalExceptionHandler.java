@@ -1,5 +1,6 @@
 package com.empik.couponapi.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -29,6 +30,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body(error);
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, String>> handleTooManyRequestsException(TooManyRequestsException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Too many requests");
+        error.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(error);
+    }
+
     @ExceptionHandler(CouponApiException.class)
     public ResponseEntity<Map<String, String>> handleCouponApiException(CouponApiException e) {
         Map<String, String> error = new HashMap<>();
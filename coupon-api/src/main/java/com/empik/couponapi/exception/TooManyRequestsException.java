@@ -0,0 +1,17 @@
+package com.empik.couponapi.exception;
+
+import java.time.Duration;
+
+public class TooManyRequestsException extends CouponApiException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
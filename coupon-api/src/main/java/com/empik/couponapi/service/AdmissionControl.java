@@ -0,0 +1,203 @@
+package com.empik.couponapi.service;
+
+import com.empik.couponapi.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load shedding for use requests. A request is admitted only while this instance has fewer than
+ * {@code coupon-api.admission.max-in-flight} requests waiting for a reply and the coupon-service consumer group
+ * is less than {@code coupon-api.admission.max-lag} records behind on the use request topic. Rejected requests
+ * fail fast with a {@code Retry-After} instead of queueing behind the backlog.
+ * <p>
+ * Lag and the consume rate are polled with the Kafka admin client. If the lag cannot be read, requests are
+ * admitted on the in-flight limit alone.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private static final double RATE_SMOOTHING = 0.3;
+
+    private final KafkaAdmin kafkaAdmin;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final AtomicLong rejectedInFlight = new AtomicLong();
+    private final AtomicLong rejectedLag = new AtomicLong();
+
+    @Value("${coupon-api.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${coupon-api.admission.max-lag:10000}")
+    private long maxLag;
+
+    @Value("${coupon-api.admission.consumer-group:coupon-service-group}")
+    private String consumerGroup;
+
+    @Value("${kafka.topics.coupon-use-request}")
+    private String couponUseRequestTopic;
+
+    @Value("${coupon-api.admission.lag-timeout:2s}")
+    private Duration lagTimeout;
+
+    @Value("${coupon-api.admission.in-flight-retry-after:1s}")
+    private Duration inFlightRetryAfter;
+
+    @Value("${coupon-api.admission.max-retry-after:30s}")
+    private Duration maxRetryAfter;
+
+    private AdminClient adminClient;
+
+    private volatile long lag = -1;
+    private volatile double consumeRate;
+    private volatile long lagCheckedAt;
+    private long lastCommitted = -1;
+
+    @Autowired
+    public AdmissionControl(KafkaAdmin kafkaAdmin,
+                            @Value("${coupon-api.admission.max-in-flight:2000}") int maxInFlight) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Takes an in-flight slot, which the caller must give back with {@link #release()}.
+     *
+     * @throws TooManyRequestsException if the request should be shed
+     */
+    public void acquire() {
+        if (!enabled) {
+            return;
+        }
+        long currentLag = lag;
+        if (currentLag > maxLag) {
+            rejectedLag.incrementAndGet();
+            throw new TooManyRequestsException("Coupon service is " + currentLag + " requests behind", lagRetryAfter(currentLag));
+        }
+        if (!inFlight.tryAcquire()) {
+            rejectedInFlight.incrementAndGet();
+            throw new TooManyRequestsException("Too many requests in flight", inFlightRetryAfter);
+        }
+    }
+
+    public void release() {
+        if (enabled) {
+            inFlight.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${coupon-api.admission.lag-poll-interval:2s}")
+    public void pollLag() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            AdminClient admin = adminClient();
+            long timeout = lagTimeout.toMillis();
+            TopicDescription topic = admin.describeTopics(List.of(couponUseRequestTopic))
+                    .allTopicNames().get(timeout, TimeUnit.MILLISECONDS).get(couponUseRequestTopic);
+            Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+            topic.partitions().forEach(partition ->
+                    latest.put(new TopicPartition(couponUseRequestTopic, partition.partition()), OffsetSpec.latest()));
+
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets =
+                    admin.listOffsets(latest).all().get(timeout, TimeUnit.MILLISECONDS);
+            Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(consumerGroup)
+                    .partitionsToOffsetAndMetadata().get(timeout, TimeUnit.MILLISECONDS);
+
+            long totalLag = 0;
+            long totalCommitted = 0;
+            for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> entry : endOffsets.entrySet()) {
+                OffsetAndMetadata offset = committed.get(entry.getKey());
+                if (offset == null) {
+                    // Nothing committed yet, which says nothing about a backlog
+                    continue;
+                }
+                long position = offset.offset();
+                totalLag += Math.max(0, entry.getValue().offset() - position);
+                totalCommitted += position;
+            }
+            updateRate(totalCommitted);
+            lag = totalLag;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.warn("Could not read consumer lag - Group: {}, Topic: {}", consumerGroup, couponUseRequestTopic, e);
+            lag = -1;
+        }
+    }
+
+    public Map<String, Object> state() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("enabled", enabled);
+        state.put("maxInFlight", maxInFlight);
+        state.put("inFlight", maxInFlight - inFlight.availablePermits());
+        state.put("maxLag", maxLag);
+        state.put("lag", lag);
+        state.put("consumeRatePerSecond", consumeRate);
+        state.put("lagCheckedAt", lagCheckedAt);
+        state.put("rejectedInFlight", rejectedInFlight.get());
+        state.put("rejectedLag", rejectedLag.get());
+        return state;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (adminClient != null) {
+            adminClient.close(Duration.ofSeconds(1));
+        }
+    }
+
+    private synchronized AdminClient adminClient() {
+        if (adminClient == null) {
+            adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        }
+        return adminClient;
+    }
+
+    private void updateRate(long totalCommitted) {
+        long now = System.currentTimeMillis();
+        if (lastCommitted >= 0 && now > lagCheckedAt) {
+            double rate = Math.max(0, totalCommitted - lastCommitted) * 1000.0 / (now - lagCheckedAt);
+            consumeRate = consumeRate == 0 ? rate : RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * consumeRate;
+        }
+        lastCommitted = totalCommitted;
+        lagCheckedAt = now;
+    }
+
+    /**
+     * Time for the consumers to work the backlog down to the threshold at the observed rate.
+     */
+    private Duration lagRetryAfter(long currentLag) {
+        double rate = consumeRate;
+        if (rate <= 0) {
+            return maxRetryAfter;
+        }
+        long seconds = (long) Math.ceil((currentLag - maxLag) / rate);
+        return Duration.ofSeconds(Math.max(1, Math.min(seconds, maxRetryAfter.toSeconds())));
+    }
+}
@@ -0,0 +1,173 @@
+package com.empik.couponapi.service;
+
+import com.empik.couponapi.dto.BulkJobResponseDto;
+import com.empik.couponapi.dto.CouponCreateRequestDto;
+import com.empik.couponapi.exception.TaskNotFoundException;
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.event.CouponBulkCreateRequestEvent;
+import com.empik.shared.event.CouponBulkCreateResponseEvent;
+import com.empik.shared.event.CouponBulkRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bulk coupon creation. The request body is read line by line and forwarded in batches of
+ * {@code coupon-api.bulk.batch-size} rows, so memory use does not depend on the body size. Per-row
+ * results arrive asynchronously and are kept in the {@link BulkJobStore}; any instance can answer them.
+ */
+@Service
+public class BulkCouponService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkCouponService.class);
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final BulkJobStore bulkJobStore;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${kafka.topics.coupon-bulk-create-request:coupon-bulk-create-request}")
+    private String couponBulkCreateRequestTopic;
+
+    @Value("${coupon-api.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    public BulkCouponService(KafkaTemplate<String, Object> kafkaTemplate,
+                             BulkJobStore bulkJobStore,
+                             ObjectMapper objectMapper,
+                             Validator validator) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.bulkJobStore = bulkJobStore;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    /**
+     * Rows are numbered from 0 in body order. Blank lines and a CSV header line starting with {@code code}
+     * are skipped; rows that cannot be parsed or fail validation are reported as FAILED.
+     */
+    public BulkJobResponseDto submit(InputStream body, Format format) throws IOException {
+        UUID jobId = UUID.randomUUID();
+        bulkJobStore.create(jobId);
+        logger.info("Bulk create started - JobId: {}, Format: {}", jobId, format);
+
+        int totalRows = 0;
+        int invalidRows = 0;
+        List<CouponBulkRow> batch = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        boolean firstLine = true;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            boolean header = firstLine && format == Format.CSV && line.regionMatches(true, 0, "code", 0, 4);
+            firstLine = false;
+            if (line.isEmpty() || header) {
+                continue;
+            }
+
+            CouponBulkRow row = parse(line, format);
+            if (row == null) {
+                invalidRows++;
+            }
+            batch.add(row);
+            totalRows++;
+            if (batch.size() == batchSize) {
+                sendBatch(jobId, totalRows - batch.size(), batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            sendBatch(jobId, totalRows - batch.size(), batch);
+        }
+        bulkJobStore.setTotalRows(jobId, totalRows);
+
+        logger.info("Bulk create submitted - JobId: {}, Rows: {}, Invalid: {}", jobId, totalRows, invalidRows);
+        return getJob(jobId, 0, 0);
+    }
+
+    public BulkJobResponseDto getJob(UUID jobId, int offset, int limit) {
+        BulkJobResponseDto job = bulkJobStore.find(jobId, offset, limit);
+        if (job == null) {
+            throw new TaskNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    @KafkaListener(groupId = "coupon-api-bulk",
+            topics = "${kafka.topics.coupon-bulk-create-response:coupon-bulk-create-response}")
+    public void handleCouponBulkCreateResponse(CouponBulkCreateResponseEvent event) {
+        logger.debug("Received bulk create response from Kafka - JobId: {}, FirstRow: {}, Size: {}",
+                event.getJobId(), event.getFirstRow(), event.getStatuses().size());
+        bulkJobStore.storeResults(event.getJobId(), event.getFirstRow(), event.getStatuses());
+    }
+
+    private CouponBulkRow parse(String line, Format format) {
+        CouponCreateRequestDto request;
+        try {
+            if (format == Format.NDJSON) {
+                request = objectMapper.readValue(line, CouponCreateRequestDto.class);
+            } else {
+                String[] columns = line.split(",", -1);
+                if (columns.length != 3) {
+                    return null;
+                }
+                request = new CouponCreateRequestDto();
+                request.setCode(columns[0].trim());
+                request.setCountryCode(columns[1].trim());
+                request.setMaxUsage(Integer.valueOf(columns[2].trim()));
+            }
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+        if (!validator.validate(request).isEmpty()) {
+            return null;
+        }
+        return new CouponBulkRow(request.getCode(), request.getCountryCode(), request.getMaxUsage());
+    }
+
+    /**
+     * A batch that cannot be sent is recorded as FAILED, so the job still completes instead of staying in progress.
+     */
+    private void sendBatch(UUID jobId, int firstRow, List<CouponBulkRow> rows) {
+        CouponBulkCreateRequestEvent event = new CouponBulkCreateRequestEvent();
+        event.setJobId(jobId);
+        event.setFirstRow(firstRow);
+        event.setRows(rows);
+        CompletableFuture<?> sent;
+        try {
+            sent = kafkaTemplate.send(couponBulkCreateRequestTopic, jobId + ":" + firstRow, event);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((result, e) -> {
+            if (e != null) {
+                logger.error("Failed to send bulk create batch - JobId: {}, FirstRow: {}, Size: {}",
+                        jobId, firstRow, rows.size(), e);
+                bulkJobStore.storeResults(jobId, firstRow,
+                        Collections.nCopies(rows.size(), CouponCreateStatusEnum.FAILED));
+            }
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package com.empik.couponapi.service;
+
+import com.empik.couponapi.dto.BulkJobResponseDto;
+import com.empik.couponapi.dto.BulkRowResultDto;
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bulk job progress in Redis. A hash holds the row count and per-status counters, and a byte string holds
+ * one byte per row: the status ordinal plus one, with 0 for rows not answered yet. Each answered batch is
+ * written with a single {@code SETRANGE}, so a 1M-row job takes about 1 MB. The first row of every stored batch
+ * is kept in a set, so a redelivered batch is not counted twice.
+ */
+@Component
+public class BulkJobStore {
+
+    private static final String TOTAL_ROWS = "total";
+    private static final CouponCreateStatusEnum[] STATUSES = CouponCreateStatusEnum.values();
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisTemplate<byte[], byte[]> bytesRedisTemplate;
+
+    @Value("${coupon-api.bulk.job-ttl:24h}")
+    private Duration jobTtl;
+
+    @Autowired
+    public BulkJobStore(StringRedisTemplate stringRedisTemplate,
+                        @Qualifier("taskStatusRedisTemplate") RedisTemplate<byte[], byte[]> bytesRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.bytesRedisTemplate = bytesRedisTemplate;
+    }
+
+    public void create(UUID jobId) {
+        stringRedisTemplate.opsForHash().put(summaryKey(jobId), CouponCreateStatusEnum.CREATED.name(), "0");
+        stringRedisTemplate.expire(summaryKey(jobId), jobTtl);
+    }
+
+    public void setTotalRows(UUID jobId, int totalRows) {
+        stringRedisTemplate.opsForHash().put(summaryKey(jobId), TOTAL_ROWS, Integer.toString(totalRows));
+        stringRedisTemplate.expire(summaryKey(jobId), jobTtl);
+    }
+
+    public void storeResults(UUID jobId, int firstRow, List<CouponCreateStatusEnum> statuses) {
+        Long added = stringRedisTemplate.opsForSet().add(batchesKey(jobId), Integer.toString(firstRow));
+        stringRedisTemplate.expire(batchesKey(jobId), jobTtl);
+        if (added == null || added == 0) {
+            return;
+        }
+
+        byte[] values = new byte[statuses.size()];
+        long[] counts = new long[STATUSES.length];
+        for (int i = 0; i < values.length; i++) {
+            CouponCreateStatusEnum status = statuses.get(i);
+            values[i] = (byte) (status.ordinal() + 1);
+            counts[status.ordinal()]++;
+        }
+
+        bytesRedisTemplate.opsForValue().set(rowsKey(jobId), values, firstRow);
+        bytesRedisTemplate.expire(rowsKey(jobId), jobTtl);
+        for (CouponCreateStatusEnum status : STATUSES) {
+            if (counts[status.ordinal()] > 0) {
+                stringRedisTemplate.opsForHash().increment(summaryKey(jobId), status.name(), counts[status.ordinal()]);
+            }
+        }
+        stringRedisTemplate.expire(summaryKey(jobId), jobTtl);
+    }
+
+    /**
+     * @return the job summary with the results of rows {@code [offset, offset + limit)}, or {@code null}
+     * if the job is unknown or expired
+     */
+    public BulkJobResponseDto find(UUID jobId, int offset, int limit) {
+        Map<Object, Object> summary = stringRedisTemplate.opsForHash().entries(summaryKey(jobId));
+        if (summary.isEmpty()) {
+            return null;
+        }
+
+        BulkJobResponseDto response = new BulkJobResponseDto();
+        response.setRequestId(jobId);
+        response.setCreated(count(summary, CouponCreateStatusEnum.CREATED));
+        response.setAlreadyExists(count(summary, CouponCreateStatusEnum.ALREADY_EXISTS));
+        response.setFailed(count(summary, CouponCreateStatusEnum.FAILED));
+        Object totalRows = summary.get(TOTAL_ROWS);
+        if (totalRows != null) {
+            response.setTotalRows(Integer.parseInt((String) totalRows));
+            response.setComplete(response.getCreated() + response.getAlreadyExists() + response.getFailed()
+                    >= response.getTotalRows());
+        }
+        response.setMessage(response.isComplete() ? "Bulk job completed" : "Bulk job in progress");
+
+        int end = totalRows == null ? offset + limit : Math.min(offset + limit, response.getTotalRows());
+        List<BulkRowResultDto> rows = new ArrayList<>();
+        if (limit > 0 && end > offset) {
+            byte[] values = bytesRedisTemplate.execute(connection ->
+                    connection.stringCommands().getRange(rowsKey(jobId), offset, end - 1L), true);
+            for (int row = offset; row < end; row++) {
+                int value = values != null && row - offset < values.length ? values[row - offset] & 0xff : 0;
+                CouponCreateStatusEnum status = value == 0 || value > STATUSES.length
+                        ? CouponCreateStatusEnum.PENDING
+                        : STATUSES[value - 1];
+                if (totalRows != null || value != 0) {
+                    rows.add(new BulkRowResultDto(row, status));
+                }
+            }
+        }
+        response.setRows(rows);
+        return response;
+    }
+
+    private static long count(Map<Object, Object> summary, CouponCreateStatusEnum status) {
+        Object value = summary.get(status.name());
+        return value == null ? 0 : Long.parseLong((String) value);
+    }
+
+    private static String summaryKey(UUID jobId) {
+        return "bulk:" + jobId;
+    }
+
+    private static String batchesKey(UUID jobId) {
+        return "bulk:" + jobId + ":batches";
+    }
+
+    private static byte[] rowsKey(UUID jobId) {
+        return ("bulk:" + jobId + ":rows").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -5,32 +5,53 @@ import com.empik.couponapi.dto.CouponCreateResponseDto;
 import com.empik.couponapi.dto.CouponUseRequestDto;
 import com.empik.couponapi.dto.CouponUseResponseDto;
 import com.empik.couponapi.exception.TaskNotFoundException;
+import com.empik.couponapi.exception.TooManyRequestsException;
 import com.empik.shared.enums.CouponCreateStatusEnum;
 import com.empik.shared.enums.CouponUseStatusEnum;
 import com.empik.shared.event.CouponCreateRequestEvent;
 import com.empik.shared.event.CouponCreateResponseEvent;
 import com.empik.shared.event.CouponUseRequestEvent;
 import com.empik.shared.event.CouponUseResponseEvent;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 @Service
 public class CouponApiService {
 
     private static final Logger logger = LoggerFactory.getLogger(CouponApiService.class);
 
+    private static final String STRIPE_SEPARATOR = "#";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final RedisTemplate<String, CouponCreateResponseEvent> createRedisTemplate;
-    private final RedisTemplate<String, CouponUseResponseEvent> useRedisTemplate;
+    private final Executor taskExecutor;
+    private final TaskStatusStore taskStatusStore;
+    private final PendingTaskRegistry<CouponCreateResponseEvent> pendingCreateTasks;
+    private final PendingTaskRegistry<CouponUseResponseEvent> pendingUseTasks;
+    private final TaskCompletionNotifier taskCompletionNotifier;
+    private final CouponStateView couponStateView;
+    private final AdmissionControl admissionControl;
+    private final ConcurrentMap<String, InFlightUse> inFlightUses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Set<UUID>> coalescedUseTasks = new ConcurrentHashMap<>();
 
     @Value("${kafka.topics.coupon-create-request}")
     private String couponCreateRequestTopic;
@@ -38,70 +59,159 @@ public class CouponApiService {
     @Value("${kafka.topics.coupon-use-request}")
     private String couponUseRequestTopic;
 
+    @Value("${coupon-api.reply.partition:0}")
+    private int replyPartition;
+
+    @Value("${coupon-api.task.wait-timeout:5s}")
+    private Duration taskWaitTimeout;
+
+    @Value("${coupon-api.task.store-pending:true}")
+    private boolean storePending;
+
+    @Value("${coupon-api.striping.codes:}")
+    private Set<String> stripedCodes;
+
+    @Value("${coupon-api.striping.stripes:8}")
+    private int stripes;
+
     @Autowired
     public CouponApiService(KafkaTemplate<String, Object> kafkaTemplate,
-                            RedisTemplate<String, CouponCreateResponseEvent> createRedisTemplate,
-                            RedisTemplate<String, CouponUseResponseEvent> useRedisTemplate) {
+                            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor taskExecutor,
+                            TaskStatusStore taskStatusStore,
+                            PendingTaskRegistry<CouponCreateResponseEvent> pendingCreateTasks,
+                            PendingTaskRegistry<CouponUseResponseEvent> pendingUseTasks,
+                            TaskCompletionNotifier taskCompletionNotifier,
+                            CouponStateView couponStateView,
+                            AdmissionControl admissionControl) {
         this.kafkaTemplate = kafkaTemplate;
-        this.createRedisTemplate = createRedisTemplate;
-        this.useRedisTemplate = useRedisTemplate;
+        this.taskExecutor = taskExecutor;
+        this.taskStatusStore = taskStatusStore;
+        this.pendingCreateTasks = pendingCreateTasks;
+        this.pendingUseTasks = pendingUseTasks;
+        this.taskCompletionNotifier = taskCompletionNotifier;
+        this.couponStateView = couponStateView;
+        this.admissionControl = admissionControl;
+    }
+
+    public CompletableFuture<CouponCreateResponseDto> createCoupon(CouponCreateRequestDto request) {
+        return createCoupon(request, null);
     }
 
-    public CouponCreateResponseDto createCoupon(CouponCreateRequestDto request) {
-        UUID taskId = UUID.randomUUID();
+    /**
+     * With an {@code Idempotency-Key} the task id is derived from the key and the request body, and a repeated
+     * key is answered from the existing task instead of sending the request again. The same key with another
+     * body is a different task.
+     */
+    public CompletableFuture<CouponCreateResponseDto> createCoupon(CouponCreateRequestDto request, String idempotencyKey) {
+        UUID taskId;
+        if (idempotencyKey != null) {
+            taskId = idempotentTaskId("create", idempotencyKey,
+                    request.getCode().toUpperCase(), request.getCountryCode(), String.valueOf(request.getMaxUsage()));
+            if (!taskStatusStore.claimCreateTask(taskId)) {
+                logger.info("Replaying create coupon request - TaskId: {}, Code: {}", taskId, request.getCode());
+                return replayCreate(taskId);
+            }
+        } else {
+            taskId = UUID.randomUUID();
+            if (storePending) {
+                taskStatusStore.storeCreateStatus(taskId, CouponCreateStatusEnum.PENDING);
+            }
+        }
 
         logger.info("Creating coupon - TaskId: {}, Code: {}, CountryCode: {}",
                 taskId, request.getCode(), request.getCountryCode());
 
-        CouponCreateResponseEvent initialEvent = new CouponCreateResponseEvent();
-        initialEvent.setRequestId(taskId);
-        initialEvent.setStatus(CouponCreateStatusEnum.PENDING);
-        storeCreateEvent(taskId, initialEvent);
-
         CouponCreateRequestEvent event = new CouponCreateRequestEvent();
         event.setRequestId(taskId);
         event.setCode(request.getCode());
         event.setCountryCode(request.getCountryCode());
         event.setMaxUsage(request.getMaxUsage());
 
-        kafkaTemplate.send(couponCreateRequestTopic, request.getCode(), event);
+        CompletableFuture<CouponCreateResponseEvent> completion = pendingCreateTasks.register(taskId, taskWaitTimeout);
+        boolean claimed = idempotencyKey != null;
+        sendRequest(couponCreateRequestTopic, request.getCode(), event, null).whenCompleteAsync((sent, e) -> {
+            if (e != null) {
+                createNotSent(taskId, claimed, e);
+            }
+        }, taskExecutor);
         logger.debug("Sent create coupon request to Kafka - TaskId: {}", taskId);
 
-        for (int i = 0; i < 50; i++) { // 5 seconds
-            CouponCreateResponseEvent response = getCreateEvent(taskId);
-            if (response != null && response.getStatus() != CouponCreateStatusEnum.PENDING) {
-                logger.info("Received create coupon response - TaskId: {}, Status: {}",
-                        taskId, response.getStatus());
-                return mapToCreateResponse(response);
-            }
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+        completion.thenAccept(response -> {
+            if (response.getStatus() == CouponCreateStatusEnum.CREATED) {
+                couponStateView.markCreated(request.getCode());
             }
-        }
-
-        logger.info("Create coupon request timeout - TaskId: {}", taskId);
+        });
 
-        CouponCreateResponseDto response = new CouponCreateResponseDto();
-        response.setRequestId(taskId);
-        response.setStatus(CouponCreateStatusEnum.PENDING);
-        response.setMessage("Coupon creation request submitted");
+        return awaitCreate(taskId, completion);
+    }
 
-        return response;
+    public CompletableFuture<CouponUseResponseDto> useCoupon(CouponUseRequestDto request, String ipAddress) {
+        return useCoupon(request, ipAddress, null);
     }
 
-    public CouponUseResponseDto useCoupon(CouponUseRequestDto request, String ipAddress) {
-        UUID taskId = UUID.randomUUID();
+    /**
+     * Subject to {@link AdmissionControl} only when a request is about to be sent to coupon-service: throws
+     * {@link TooManyRequestsException} instead of waiting when this instance or coupon-service is overloaded.
+     * Replays, state view rejections and coalesced requests are answered regardless.
+     * <p>
+     * A repeated {@code Idempotency-Key} for the same code and user is answered from the existing task. Without
+     * one, a request for the same code and user as one still in flight on this instance shares its result instead
+     * of sending another. A coalesced request with a key keeps its own task id and receives the leader's terminal
+     * status under it, also when the leader's wait timed out.
+     */
+    public CompletableFuture<CouponUseResponseDto> useCoupon(CouponUseRequestDto request, String ipAddress, String idempotencyKey) {
+        UUID taskId;
+        if (idempotencyKey != null) {
+            taskId = idempotentTaskId("use", idempotencyKey, request.getUserId(), request.getCode().toUpperCase());
+            if (!taskStatusStore.claimUseTask(taskId)) {
+                logger.info("Replaying use coupon request - TaskId: {}, Code: {}, UserId: {}",
+                        taskId, request.getCode(), request.getUserId());
+                return replayUse(taskId);
+            }
+        } else {
+            taskId = UUID.randomUUID();
+        }
 
         logger.info("Using coupon - TaskId: {}, Code: {}, UserId: {}, IP: {}",
                 taskId, request.getCode(), request.getUserId(), ipAddress);
 
-        CouponUseResponseEvent initialEvent = new CouponUseResponseEvent();
-        initialEvent.setRequestId(taskId);
-        initialEvent.setStatus(CouponUseStatusEnum.PENDING);
-        storeUseEvent(taskId, initialEvent);
+        CouponUseStatusEnum rejection = couponStateView.rejectionFor(request.getCode());
+        if (rejection != null) {
+            logger.info("Use coupon rejected from state view - TaskId: {}, Code: {}, Status: {}",
+                    taskId, request.getCode(), rejection);
+            CouponUseResponseEvent rejectedEvent = new CouponUseResponseEvent();
+            rejectedEvent.setRequestId(taskId);
+            rejectedEvent.setStatus(rejection);
+            storeUseEvent(taskId, rejectedEvent);
+            return CompletableFuture.completedFuture(mapToUseResponse(rejectedEvent));
+        }
+
+        String inFlightKey = request.getCode().toUpperCase() + '\n' + request.getUserId();
+        CompletableFuture<CouponUseResponseDto> result = new CompletableFuture<>();
+        InFlightUse leader = new InFlightUse(taskId, result);
+        InFlightUse inFlight = inFlightUses.putIfAbsent(inFlightKey, leader);
+        if (inFlight != null) {
+            logger.info("Coalesced use coupon request - TaskId: {}, LeaderTaskId: {}, Code: {}, UserId: {}",
+                    taskId, inFlight.taskId(), request.getCode(), request.getUserId());
+            return idempotencyKey != null ? followUse(taskId, inFlight) : inFlight.result();
+        }
+        result.whenComplete((response, e) -> inFlightUses.remove(inFlightKey, leader));
+
+        try {
+            admissionControl.acquire();
+        } catch (TooManyRequestsException e) {
+            if (idempotencyKey != null) {
+                taskStatusStore.releaseUseTask(taskId);
+            }
+            // Requests that joined in the meantime are shed with it
+            result.completeExceptionally(e);
+            throw e;
+        }
+        result.whenComplete((response, e) -> admissionControl.release());
+
+        if (storePending && idempotencyKey == null) {
+            taskStatusStore.storeUseStatus(taskId, CouponUseStatusEnum.PENDING);
+        }
 
         CouponUseRequestEvent event = new CouponUseRequestEvent();
         event.setRequestId(taskId);
@@ -109,46 +219,55 @@ public class CouponApiService {
         event.setUserId(request.getUserId());
         event.setIpAddress(ipAddress);
 
-        kafkaTemplate.send(couponUseRequestTopic, request.getCode(), event);
+        CompletableFuture<CouponUseResponseEvent> completion = pendingUseTasks.register(taskId, taskWaitTimeout);
+        boolean claimed = idempotencyKey != null;
+        Integer stripe = stripeOf(request.getCode(), request.getUserId());
+        String key = stripe == null ? request.getCode() : request.getCode().toUpperCase() + STRIPE_SEPARATOR + stripe;
+        sendRequest(couponUseRequestTopic, key, event, stripe).whenCompleteAsync((sent, e) -> {
+            if (e != null) {
+                useNotSent(taskId, claimed, e);
+            }
+        }, taskExecutor);
         logger.debug("Sent use coupon request to Kafka - TaskId: {}", taskId);
 
-        for (int i = 0; i < 50; i++) {
-            CouponUseResponseEvent response = getUseEvent(taskId);
-            if (response != null && response.getStatus() != CouponUseStatusEnum.PENDING) {
-                logger.info("Received use coupon response - TaskId: {}, Status: {}",
-                        taskId, response.getStatus());
-                return mapToUseResponse(response);
+        awaitUse(taskId, completion).whenComplete((response, e) -> {
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(response);
             }
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-        }
-
-        logger.info("Use coupon request timeout - TaskId: {}", taskId);
-
-        CouponUseResponseDto response = new CouponUseResponseDto();
-        response.setRequestId(taskId);
-        response.setStatus(CouponUseStatusEnum.PENDING);
-        response.setMessage("Coupon use request submitted");
-
-        return response;
+        });
+        return result;
     }
 
-    @KafkaListener(topics = "coupon-create-response", groupId = "coupon-service-group")
+    /**
+     * Replies are read from this instance's partition under its own {@code coupon-api-replies-<partition>} group,
+     * so offsets are committed and a restart resumes after the last handled reply instead of replaying the partition.
+     */
+    @KafkaListener(groupId = "coupon-api-replies-${coupon-api.reply.partition:0}",
+            topicPartitions = @TopicPartition(topic = "${kafka.topics.coupon-create-response}",
+                    partitions = "${coupon-api.reply.partition:0}"))
     public void handleCouponCreateResponse(CouponCreateResponseEvent event) {
         logger.debug("Received create coupon response from Kafka - RequestId: {}, Status: {}",
                 event.getRequestId(), event.getStatus());
         storeCreateEvent(event.getRequestId(), event);
+        // Only a reply nobody here was waiting for needs to wake another instance
+        if (!pendingCreateTasks.complete(event.getRequestId(), event)) {
+            taskCompletionNotifier.publishCreateCompleted(event);
+        }
     }
 
-    @KafkaListener(topics = "coupon-use-response", groupId = "coupon-service-group")
+    @KafkaListener(groupId = "coupon-api-replies-${coupon-api.reply.partition:0}",
+            topicPartitions = @TopicPartition(topic = "${kafka.topics.coupon-use-response}",
+                    partitions = "${coupon-api.reply.partition:0}"))
     public void handleCouponUseResponse(CouponUseResponseEvent event) {
         logger.debug("Received use coupon response from Kafka - RequestId: {}, Status: {}",
                 event.getRequestId(), event.getStatus());
         storeUseEvent(event.getRequestId(), event);
+        completeCoalesced(event.getRequestId(), event.getStatus());
+        if (!pendingUseTasks.complete(event.getRequestId(), event)) {
+            taskCompletionNotifier.publishUseCompleted(event);
+        }
     }
 
     public CouponCreateResponseDto getCreateTaskStatus(UUID taskId) {
@@ -167,24 +286,226 @@ public class CouponApiService {
         return mapToUseResponse(event);
     }
 
+    public Duration getCreateStatusTtl(UUID taskId) {
+        return taskStatusStore.getCreateStatusTtl(taskId);
+    }
+
+    public Duration getUseStatusTtl(UUID taskId) {
+        return taskStatusStore.getUseStatusTtl(taskId);
+    }
+
+    /**
+     * Hot codes listed in {@code coupon-api.striping.codes} are sent with a stripe in the
+     * {@link CouponUseRequestEvent#STRIPE_HEADER} header and keyed as {@code CODE#stripe}, so that their requests
+     * spread over partitions. The key only drives partitioning. A user always maps to the same stripe.
+     */
+    private Integer stripeOf(String code, String userId) {
+        if (stripedCodes.stream().noneMatch(code::equalsIgnoreCase)) {
+            return null;
+        }
+        return Math.floorMod(userId.hashCode(), stripes);
+    }
+
+    private static UUID idempotentTaskId(String scope, String idempotencyKey, String... body) {
+        String name = scope + '\n' + idempotencyKey + '\n' + String.join("\n", body);
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A request that never reached Kafka is answered FAILED. A claimed idempotency key is released instead of
+     * being left PENDING, so the client can retry with it.
+     */
+    private void createNotSent(UUID taskId, boolean claimed, Throwable e) {
+        logger.error("Failed to send create coupon request - TaskId: {}", taskId, e);
+        CouponCreateResponseEvent failed = new CouponCreateResponseEvent();
+        failed.setRequestId(taskId);
+        failed.setStatus(CouponCreateStatusEnum.FAILED);
+        if (claimed) {
+            taskStatusStore.releaseCreateTask(taskId);
+        } else {
+            storeCreateEvent(taskId, failed);
+        }
+        pendingCreateTasks.complete(taskId, failed);
+    }
+
+    private void useNotSent(UUID taskId, boolean claimed, Throwable e) {
+        logger.error("Failed to send use coupon request - TaskId: {}", taskId, e);
+        CouponUseResponseEvent failed = new CouponUseResponseEvent();
+        failed.setRequestId(taskId);
+        failed.setStatus(CouponUseStatusEnum.FAILED);
+        if (claimed) {
+            taskStatusStore.releaseUseTask(taskId);
+        } else {
+            storeUseEvent(taskId, failed);
+        }
+        pendingUseTasks.complete(taskId, failed);
+        completeCoalesced(taskId, CouponUseStatusEnum.FAILED);
+    }
+
+    /**
+     * Waits for the leader's terminal status under the follower's own, claimed task id. The status is taken from
+     * the leader's reply, or from the leader's result when that is already terminal; a leader that timed out keeps
+     * its followers registered until the reply arrives. A failed leader leaves the follower's key retryable.
+     */
+    private CompletableFuture<CouponUseResponseDto> followUse(UUID taskId, InFlightUse leader) {
+        CompletableFuture<CouponUseResponseDto> followed = new CompletableFuture<>();
+        awaitUse(taskId, pendingUseTasks.register(taskId, taskWaitTimeout)).whenComplete((response, e) -> {
+            if (e != null) {
+                followed.completeExceptionally(e);
+            } else {
+                followed.complete(response);
+            }
+        });
+        coalescedUseTasks.compute(leader.taskId(), (leaderId, followers) -> {
+            Set<UUID> updated = followers != null ? followers : ConcurrentHashMap.newKeySet();
+            updated.add(taskId);
+            return updated;
+        });
+        leader.result().whenComplete((response, e) -> {
+            if ((e == null && response.getStatus() == CouponUseStatusEnum.PENDING) || !unfollow(leader.taskId(), taskId)) {
+                return;
+            }
+            if (e != null) {
+                followed.completeExceptionally(e);
+            }
+            completeFollower(taskId, e != null ? CouponUseStatusEnum.FAILED : response.getStatus());
+        });
+        return followed;
+    }
+
+    private boolean unfollow(UUID leaderId, UUID taskId) {
+        boolean[] removed = new boolean[1];
+        coalescedUseTasks.computeIfPresent(leaderId, (id, followers) -> {
+            removed[0] = followers.remove(taskId);
+            return followers.isEmpty() ? null : followers;
+        });
+        return removed[0];
+    }
+
+    private void completeCoalesced(UUID leaderId, CouponUseStatusEnum status) {
+        Set<UUID> followers = coalescedUseTasks.remove(leaderId);
+        if (followers != null) {
+            followers.forEach(taskId -> completeFollower(taskId, status));
+        }
+    }
+
+    private void completeFollower(UUID taskId, CouponUseStatusEnum status) {
+        CouponUseResponseEvent event = new CouponUseResponseEvent();
+        event.setRequestId(taskId);
+        event.setStatus(status);
+        if (status == CouponUseStatusEnum.FAILED) {
+            taskStatusStore.releaseUseTask(taskId);
+        } else {
+            storeUseEvent(taskId, event);
+        }
+        pendingUseTasks.complete(taskId, event);
+    }
+
+    // On timeout the reply may have been consumed by another instance, so check the store once
+    private CompletableFuture<CouponCreateResponseDto> awaitCreate(UUID taskId, CompletableFuture<CouponCreateResponseEvent> completion) {
+        return completion
+                .exceptionallyCompose(e -> CompletableFuture.supplyAsync(() -> getCreateEvent(taskId), taskExecutor))
+                .thenApply(response -> toCreateResponse(taskId, response));
+    }
+
+    private CompletableFuture<CouponUseResponseDto> awaitUse(UUID taskId, CompletableFuture<CouponUseResponseEvent> completion) {
+        return completion
+                .exceptionallyCompose(e -> CompletableFuture.supplyAsync(() -> getUseEvent(taskId), taskExecutor))
+                .thenApply(response -> toUseResponse(taskId, response));
+    }
+
+    /**
+     * A task still waiting on this instance is awaited, otherwise the stored status is returned as is,
+     * which is PENDING while another instance is processing it.
+     */
+    private CompletableFuture<CouponCreateResponseDto> replayCreate(UUID taskId) {
+        CompletableFuture<CouponCreateResponseEvent> completion = pendingCreateTasks.get(taskId);
+        if (completion != null) {
+            return awaitCreate(taskId, completion);
+        }
+        return CompletableFuture.completedFuture(toCreateResponse(taskId, getCreateEvent(taskId)));
+    }
+
+    private CompletableFuture<CouponUseResponseDto> replayUse(UUID taskId) {
+        CompletableFuture<CouponUseResponseEvent> completion = pendingUseTasks.get(taskId);
+        if (completion != null) {
+            return awaitUse(taskId, completion);
+        }
+        return CompletableFuture.completedFuture(toUseResponse(taskId, getUseEvent(taskId)));
+    }
+
+    /**
+     * Only the reply partition is stamped; coupon-service always answers on the configured response topics.
+     * A send that fails before reaching the producer is returned as a failed future like any other.
+     */
+    private CompletableFuture<?> sendRequest(String topic, String key, Object event, Integer stripe) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, key, event);
+        if (stripe != null) {
+            record.headers().add(CouponUseRequestEvent.STRIPE_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(stripe).array());
+        }
+        record.headers().add(KafkaHeaders.REPLY_PARTITION,
+                ByteBuffer.allocate(Integer.BYTES).putInt(replyPartition).array());
+        try {
+            return kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     private void storeCreateEvent(UUID taskId, CouponCreateResponseEvent event) {
-        String key = "create:" + taskId;
-        createRedisTemplate.opsForValue().set(key, event, Duration.ofHours(24));
+        taskStatusStore.storeCreateStatus(taskId, event.getStatus());
     }
 
     private void storeUseEvent(UUID taskId, CouponUseResponseEvent event) {
-        String key = "use:" + taskId;
-        useRedisTemplate.opsForValue().set(key, event, Duration.ofHours(24));
+        taskStatusStore.storeUseStatus(taskId, event.getStatus());
     }
 
+    /**
+     * Without a stored PENDING status, a task still waiting on this instance is reported from the local registry.
+     */
     private CouponCreateResponseEvent getCreateEvent(UUID taskId) {
-        String key = "create:" + taskId;
-        return createRedisTemplate.opsForValue().get(key);
+        CouponCreateStatusEnum status = taskStatusStore.getCreateStatus(taskId);
+        if (status == null && pendingCreateTasks.contains(taskId)) {
+            status = CouponCreateStatusEnum.PENDING;
+        }
+        if (status == null) {
+            return null;
+        }
+        CouponCreateResponseEvent event = new CouponCreateResponseEvent();
+        event.setRequestId(taskId);
+        event.setStatus(status);
+        return event;
     }
 
     private CouponUseResponseEvent getUseEvent(UUID taskId) {
-        String key = "use:" + taskId;
-        return useRedisTemplate.opsForValue().get(key);
+        CouponUseStatusEnum status = taskStatusStore.getUseStatus(taskId);
+        if (status == null && pendingUseTasks.contains(taskId)) {
+            status = CouponUseStatusEnum.PENDING;
+        }
+        if (status == null) {
+            return null;
+        }
+        CouponUseResponseEvent event = new CouponUseResponseEvent();
+        event.setRequestId(taskId);
+        event.setStatus(status);
+        return event;
+    }
+
+    private CouponCreateResponseDto toCreateResponse(UUID taskId, CouponCreateResponseEvent response) {
+        if (response != null && response.getStatus() != CouponCreateStatusEnum.PENDING) {
+            logger.info("Received create coupon response - TaskId: {}, Status: {}",
+                    taskId, response.getStatus());
+            return mapToCreateResponse(response);
+        }
+
+        logger.info("Create coupon request timeout - TaskId: {}", taskId);
+
+        CouponCreateResponseDto pendingResponse = new CouponCreateResponseDto();
+        pendingResponse.setRequestId(taskId);
+        pendingResponse.setStatus(CouponCreateStatusEnum.PENDING);
+        pendingResponse.setMessage("Coupon creation request submitted");
+
+        return pendingResponse;
     }
 
     private CouponCreateResponseDto mapToCreateResponse(CouponCreateResponseEvent event) {
@@ -203,6 +524,23 @@ public class CouponApiService {
         return response;
     }
 
+    private CouponUseResponseDto toUseResponse(UUID taskId, CouponUseResponseEvent response) {
+        if (response != null && response.getStatus() != CouponUseStatusEnum.PENDING) {
+            logger.info("Received use coupon response - TaskId: {}, Status: {}",
+                    taskId, response.getStatus());
+            return mapToUseResponse(response);
+        }
+
+        logger.info("Use coupon request timeout - TaskId: {}", taskId);
+
+        CouponUseResponseDto pendingResponse = new CouponUseResponseDto();
+        pendingResponse.setRequestId(taskId);
+        pendingResponse.setStatus(CouponUseStatusEnum.PENDING);
+        pendingResponse.setMessage("Coupon use request submitted");
+
+        return pendingResponse;
+    }
+
     private CouponUseResponseDto mapToUseResponse(CouponUseResponseEvent event) {
         String message = switch (event.getStatus()) {
             case SUCCESS -> "Coupon used successfully";
@@ -222,4 +560,7 @@ public class CouponApiService {
 
         return response;
     }
-}
\ No newline at end of file
+
+    private record InFlightUse(UUID taskId, CompletableFuture<CouponUseResponseDto> result) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.empik.couponapi.service;
+
+import com.empik.shared.enums.CouponStateEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import com.empik.shared.event.CouponStateEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Local read-only view of the log-compacted coupon state topic published by coupon-service. Every instance is
+ * assigned all partitions without group management and replays them from the beginning. Exhausted coupons are
+ * rejected as soon as their state is seen; unknown codes are rejected only once the position on every partition
+ * has reached the end offset read at assignment.
+ * <p>
+ * coupon-service puts coupons inserted outside the Kafka pipeline on the topic at startup and in a periodic
+ * catch-up, so until that runs such a coupon is answered {@code NOT_EXISTS} here. Set
+ * {@code coupon-api.state-view.reject-unknown=false} where rows are inserted directly.
+ */
+@Service
+public class CouponStateView implements ConsumerSeekAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponStateView.class);
+
+    static final String LISTENER_ID = "coupon-state-view";
+
+    private final ConcurrentMap<String, CouponStateEnum> states = new ConcurrentHashMap<>();
+
+    @Value("${coupon-api.state-view.enabled:true}")
+    private boolean enabled;
+
+    @Value("${coupon-api.state-view.reject-unknown:true}")
+    private boolean rejectUnknown;
+
+    private volatile boolean ready;
+
+    // Only touched on the listener's consumer thread
+    private Map<TopicPartition, Long> endOffsets;
+
+    /**
+     * Offsets committed under {@code coupon-api-state} are never read back; the view always starts from the beginning.
+     */
+    @KafkaListener(id = LISTENER_ID, groupId = "coupon-api-state",
+            topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+                    topic = "${kafka.topics.coupon-state:coupon-state}",
+                    partitions = "0-#{${kafka.topics.coupon-state-partitions:3} - 1}"),
+            properties = "enable.auto.commit=false",
+            containerFactory = "couponStateKafkaListenerContainerFactory",
+            autoStartup = "${coupon-api.state-view.enabled:true}")
+    public void handleCouponStateEvent(CouponStateEvent event, Consumer<?, ?> consumer) {
+        states.put(event.getCode().toUpperCase(), event.getState());
+        checkCaughtUp(consumer);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToBeginning(assignments.keySet());
+        endOffsets = null;
+    }
+
+    @EventListener
+    public void onListenerIdle(ListenerContainerIdleEvent event) {
+        if (event.getListenerId().startsWith(LISTENER_ID)) {
+            checkCaughtUp(event.getConsumer());
+        }
+    }
+
+    private void checkCaughtUp(Consumer<?, ?> consumer) {
+        if (ready) {
+            return;
+        }
+        if (endOffsets == null) {
+            if (consumer.assignment().isEmpty()) {
+                return;
+            }
+            endOffsets = consumer.endOffsets(consumer.assignment());
+        }
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return;
+            }
+        }
+        ready = true;
+        logger.info("Coupon state view caught up - Coupons: {}", states.size());
+    }
+
+    /**
+     * Records a coupon this instance saw being created, ahead of its state event.
+     */
+    public void markCreated(String code) {
+        states.putIfAbsent(code.toUpperCase(), CouponStateEnum.ACTIVE);
+    }
+
+    /**
+     * Returns the status a use request can be answered with without reaching coupon-service, or {@code null}.
+     */
+    public CouponUseStatusEnum rejectionFor(String code) {
+        if (!enabled) {
+            return null;
+        }
+        CouponStateEnum state = states.get(code.toUpperCase());
+        if (state == CouponStateEnum.EXHAUSTED) {
+            return CouponUseStatusEnum.LIMIT_REACHED;
+        }
+        if (state == null && ready && rejectUnknown) {
+            return CouponUseStatusEnum.NOT_EXISTS;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,238 @@
+package com.empik.couponapi.service;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process task status store kept in one direct buffer of fixed 32-byte slots, so millions of short-lived
+ * statuses create no heap objects. Slots are grouped into buckets of eight, addressed by a hash of the task id.
+ * Expired slots are reused on write; when a bucket is full of live entries the one closest to expiry is
+ * overwritten, so the store never grows past its capacity.
+ */
+public class OffHeapTaskStatusStore implements TaskStatusStore {
+
+    static final int SLOT_BYTES = 32;
+    static final int BUCKET_SLOTS = 8;
+
+    private static final int BUCKET_BYTES = SLOT_BYTES * BUCKET_SLOTS;
+    // Largest power of two whose buffer size, buckets * BUCKET_BYTES, still fits an int
+    private static final int MAX_BUCKETS = 1 << 22;
+    private static final int LOCK_STRIPES = 256;
+
+    // Slot layout; an expiry of 0 marks a slot that was never written
+    private static final int MSB_OFFSET = 0;
+    private static final int LSB_OFFSET = 8;
+    private static final int EXPIRES_AT_OFFSET = 16;
+    private static final int TYPE_OFFSET = 24;
+    private static final int STATUS_OFFSET = 25;
+
+    private static final byte CREATE_TYPE = 'c';
+    private static final byte USE_TYPE = 'u';
+
+    private static final CouponCreateStatusEnum[] CREATE_STATUSES = CouponCreateStatusEnum.values();
+    private static final CouponUseStatusEnum[] USE_STATUSES = CouponUseStatusEnum.values();
+
+    private final ByteBuffer slots;
+    private final int bucketMask;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final long pendingTtlMillis;
+    private final long terminalTtlMillis;
+    private final LongSupplier clock;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public OffHeapTaskStatusStore(int capacity, Duration pendingTtl, Duration terminalTtl) {
+        this(capacity, pendingTtl, terminalTtl, System::currentTimeMillis);
+    }
+
+    OffHeapTaskStatusStore(int capacity, Duration pendingTtl, Duration terminalTtl, LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        long minBuckets = ((long) capacity + BUCKET_SLOTS - 1) / BUCKET_SLOTS;
+        if (minBuckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Capacity too large for a single buffer: " + capacity);
+        }
+        int buckets = minBuckets == 1 ? 1 : Integer.highestOneBit((int) minBuckets - 1) << 1;
+        this.slots = ByteBuffer.allocateDirect(buckets * BUCKET_BYTES);
+        this.bucketMask = buckets - 1;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.pendingTtlMillis = pendingTtl.toMillis();
+        this.terminalTtlMillis = terminalTtl.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public void storeCreateStatus(UUID taskId, CouponCreateStatusEnum status) {
+        store(taskId, CREATE_TYPE, status, status == CouponCreateStatusEnum.PENDING, false);
+    }
+
+    @Override
+    public void storeUseStatus(UUID taskId, CouponUseStatusEnum status) {
+        store(taskId, USE_TYPE, status, status == CouponUseStatusEnum.PENDING, false);
+    }
+
+    @Override
+    public boolean claimCreateTask(UUID taskId) {
+        return store(taskId, CREATE_TYPE, CouponCreateStatusEnum.PENDING, true, true);
+    }
+
+    @Override
+    public boolean claimUseTask(UUID taskId) {
+        return store(taskId, USE_TYPE, CouponUseStatusEnum.PENDING, true, true);
+    }
+
+    @Override
+    public void releaseCreateTask(UUID taskId) {
+        release(taskId, CREATE_TYPE);
+    }
+
+    @Override
+    public void releaseUseTask(UUID taskId) {
+        release(taskId, USE_TYPE);
+    }
+
+    @Override
+    public CouponCreateStatusEnum getCreateStatus(UUID taskId) {
+        int ordinal = find(taskId, CREATE_TYPE);
+        return ordinal >= 0 && ordinal < CREATE_STATUSES.length ? CREATE_STATUSES[ordinal] : null;
+    }
+
+    @Override
+    public CouponUseStatusEnum getUseStatus(UUID taskId) {
+        int ordinal = find(taskId, USE_TYPE);
+        return ordinal >= 0 && ordinal < USE_STATUSES.length ? USE_STATUSES[ordinal] : null;
+    }
+
+    @Override
+    public Duration getCreateStatusTtl(UUID taskId) {
+        return ttl(taskId, CREATE_TYPE);
+    }
+
+    @Override
+    public Duration getUseStatusTtl(UUID taskId) {
+        return ttl(taskId, USE_TYPE);
+    }
+
+    public int capacity() {
+        return (bucketMask + 1) * BUCKET_SLOTS;
+    }
+
+    public long memoryBytes() {
+        return slots.capacity();
+    }
+
+    /**
+     * @return number of live entries overwritten because their bucket was full
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    private boolean store(UUID taskId, byte type, Enum<?> status, boolean pending, boolean onlyIfAbsent) {
+        long msb = taskId.getMostSignificantBits();
+        long lsb = taskId.getLeastSignificantBits();
+        int bucket = bucketOf(msb, lsb);
+        int base = bucket * BUCKET_BYTES;
+        long now = clock.getAsLong();
+
+        synchronized (locks[bucket & (LOCK_STRIPES - 1)]) {
+            int target = -1;
+            long oldestExpiry = Long.MAX_VALUE;
+            for (int slot = base; slot < base + BUCKET_BYTES; slot += SLOT_BYTES) {
+                long expiresAt = slots.getLong(slot + EXPIRES_AT_OFFSET);
+                if (expiresAt != 0 && matches(slot, msb, lsb, type)) {
+                    if (onlyIfAbsent && expiresAt > now) {
+                        return false;
+                    }
+                    target = slot;
+                    oldestExpiry = 0;
+                    break;
+                }
+                if (expiresAt < oldestExpiry) {
+                    oldestExpiry = expiresAt;
+                    target = slot;
+                }
+            }
+            if (oldestExpiry > now) {
+                evictions.incrementAndGet();
+            }
+            slots.putLong(target + MSB_OFFSET, msb);
+            slots.putLong(target + LSB_OFFSET, lsb);
+            slots.putLong(target + EXPIRES_AT_OFFSET, now + (pending ? pendingTtlMillis : terminalTtlMillis));
+            slots.put(target + TYPE_OFFSET, type);
+            slots.put(target + STATUS_OFFSET, (byte) status.ordinal());
+        }
+        return true;
+    }
+
+    // An expiry of 1 reads as long expired, so the slot is reused first and never found again
+    private void release(UUID taskId, byte type) {
+        long msb = taskId.getMostSignificantBits();
+        long lsb = taskId.getLeastSignificantBits();
+        int bucket = bucketOf(msb, lsb);
+        int base = bucket * BUCKET_BYTES;
+
+        synchronized (locks[bucket & (LOCK_STRIPES - 1)]) {
+            for (int slot = base; slot < base + BUCKET_BYTES; slot += SLOT_BYTES) {
+                if (slots.getLong(slot + EXPIRES_AT_OFFSET) != 0 && matches(slot, msb, lsb, type)) {
+                    slots.putLong(slot + EXPIRES_AT_OFFSET, 1);
+                    return;
+                }
+            }
+        }
+    }
+
+    private int find(UUID taskId, byte type) {
+        long msb = taskId.getMostSignificantBits();
+        long lsb = taskId.getLeastSignificantBits();
+        int bucket = bucketOf(msb, lsb);
+        int base = bucket * BUCKET_BYTES;
+        long now = clock.getAsLong();
+
+        synchronized (locks[bucket & (LOCK_STRIPES - 1)]) {
+            for (int slot = base; slot < base + BUCKET_BYTES; slot += SLOT_BYTES) {
+                if (slots.getLong(slot + EXPIRES_AT_OFFSET) > now && matches(slot, msb, lsb, type)) {
+                    return slots.get(slot + STATUS_OFFSET) & 0xff;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Duration ttl(UUID taskId, byte type) {
+        long msb = taskId.getMostSignificantBits();
+        long lsb = taskId.getLeastSignificantBits();
+        int bucket = bucketOf(msb, lsb);
+        int base = bucket * BUCKET_BYTES;
+        long now = clock.getAsLong();
+
+        synchronized (locks[bucket & (LOCK_STRIPES - 1)]) {
+            for (int slot = base; slot < base + BUCKET_BYTES; slot += SLOT_BYTES) {
+                long expiresAt = slots.getLong(slot + EXPIRES_AT_OFFSET);
+                if (expiresAt > now && matches(slot, msb, lsb, type)) {
+                    return Duration.ofMillis(expiresAt - now);
+                }
+            }
+        }
+        return Duration.ZERO;
+    }
+
+    private boolean matches(int slot, long msb, long lsb, byte type) {
+        return slots.getLong(slot + MSB_OFFSET) == msb
+                && slots.getLong(slot + LSB_OFFSET) == lsb
+                && slots.get(slot + TYPE_OFFSET) == type;
+    }
+
+    private int bucketOf(long msb, long lsb) {
+        long hash = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 40) & bucketMask;
+    }
+}
@@ -0,0 +1,44 @@
+package com.empik.couponapi.service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process registry of requests waiting for a Kafka reply, keyed by request id.
+ * Entries are evicted when completed or when their timeout elapses.
+ */
+public class PendingTaskRegistry<T> {
+
+    private final ConcurrentMap<UUID, CompletableFuture<T>> pending = new ConcurrentHashMap<>();
+
+    public CompletableFuture<T> register(UUID taskId, Duration timeout) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pending.put(taskId, future);
+        future.whenComplete((result, error) -> pending.remove(taskId, future));
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean complete(UUID taskId, T result) {
+        CompletableFuture<T> future = pending.get(taskId);
+        return future != null && future.complete(result);
+    }
+
+    /**
+     * @return the future of a task still waiting on this instance, or {@code null}
+     */
+    public CompletableFuture<T> get(UUID taskId) {
+        return pending.get(taskId);
+    }
+
+    public boolean contains(UUID taskId) {
+        return pending.containsKey(taskId);
+    }
+
+    public int size() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,113 @@
+package com.empik.couponapi.service;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis-backed task status store. Keys are a one-byte task type followed by the 16 raw bytes of the task id,
+ * values are the single status ordinal byte. PENDING entries only need to outlive the request round trip and
+ * get a much shorter TTL than terminal statuses.
+ */
+public class RedisTaskStatusStore implements TaskStatusStore {
+
+    private static final byte CREATE_TYPE = 'c';
+    private static final byte USE_TYPE = 'u';
+
+    private static final CouponCreateStatusEnum[] CREATE_STATUSES = CouponCreateStatusEnum.values();
+    private static final CouponUseStatusEnum[] USE_STATUSES = CouponUseStatusEnum.values();
+
+    private final RedisTemplate<byte[], byte[]> redisTemplate;
+    private final Duration pendingTtl;
+    private final Duration terminalTtl;
+
+    public RedisTaskStatusStore(RedisTemplate<byte[], byte[]> redisTemplate, Duration pendingTtl, Duration terminalTtl) {
+        this.redisTemplate = redisTemplate;
+        this.pendingTtl = pendingTtl;
+        this.terminalTtl = terminalTtl;
+    }
+
+    @Override
+    public void storeCreateStatus(UUID taskId, CouponCreateStatusEnum status) {
+        store(key(CREATE_TYPE, taskId), status, status == CouponCreateStatusEnum.PENDING);
+    }
+
+    @Override
+    public void storeUseStatus(UUID taskId, CouponUseStatusEnum status) {
+        store(key(USE_TYPE, taskId), status, status == CouponUseStatusEnum.PENDING);
+    }
+
+    @Override
+    public boolean claimCreateTask(UUID taskId) {
+        return claim(key(CREATE_TYPE, taskId), CouponCreateStatusEnum.PENDING);
+    }
+
+    @Override
+    public boolean claimUseTask(UUID taskId) {
+        return claim(key(USE_TYPE, taskId), CouponUseStatusEnum.PENDING);
+    }
+
+    @Override
+    public void releaseCreateTask(UUID taskId) {
+        redisTemplate.delete(key(CREATE_TYPE, taskId));
+    }
+
+    @Override
+    public void releaseUseTask(UUID taskId) {
+        redisTemplate.delete(key(USE_TYPE, taskId));
+    }
+
+    @Override
+    public CouponCreateStatusEnum getCreateStatus(UUID taskId) {
+        return decode(redisTemplate.opsForValue().get(key(CREATE_TYPE, taskId)), CREATE_STATUSES);
+    }
+
+    @Override
+    public CouponUseStatusEnum getUseStatus(UUID taskId) {
+        return decode(redisTemplate.opsForValue().get(key(USE_TYPE, taskId)), USE_STATUSES);
+    }
+
+    @Override
+    public Duration getCreateStatusTtl(UUID taskId) {
+        return ttl(key(CREATE_TYPE, taskId));
+    }
+
+    @Override
+    public Duration getUseStatusTtl(UUID taskId) {
+        return ttl(key(USE_TYPE, taskId));
+    }
+
+    // PTTL answers -2 for a missing key and -1 for one without expiry, which this store never writes
+    private Duration ttl(byte[] key) {
+        Long millis = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+        return millis == null || millis <= 0 ? Duration.ZERO : Duration.ofMillis(millis);
+    }
+
+    private void store(byte[] key, Enum<?> status, boolean pending) {
+        redisTemplate.opsForValue().set(key, new byte[]{(byte) status.ordinal()}, pending ? pendingTtl : terminalTtl);
+    }
+
+    private boolean claim(byte[] key, Enum<?> pending) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, new byte[]{(byte) pending.ordinal()}, pendingTtl));
+    }
+
+    private static byte[] key(byte type, UUID taskId) {
+        return ByteBuffer.allocate(1 + 2 * Long.BYTES)
+                .put(type)
+                .putLong(taskId.getMostSignificantBits())
+                .putLong(taskId.getLeastSignificantBits())
+                .array();
+    }
+
+    private static <E extends Enum<E>> E decode(byte[] value, E[] statuses) {
+        if (value == null || value.length == 0 || (value[0] & 0xff) >= statuses.length) {
+            return null;
+        }
+        return statuses[value[0] & 0xff];
+    }
+}
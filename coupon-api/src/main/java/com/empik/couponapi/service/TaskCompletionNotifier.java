@@ -0,0 +1,95 @@
+package com.empik.couponapi.service;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import com.empik.shared.event.CouponCreateResponseEvent;
+import com.empik.shared.event.CouponUseResponseEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Publishes task completions on a Redis channel and wakes local waiters when a completion
+ * for one of their tasks was consumed by another coupon-api instance.
+ */
+@Component
+public class TaskCompletionNotifier implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskCompletionNotifier.class);
+
+    private static final String CREATE_PREFIX = "c";
+    private static final String USE_PREFIX = "u";
+
+    private final StringRedisTemplate redisTemplate;
+    private final PendingTaskRegistry<CouponCreateResponseEvent> pendingCreateTasks;
+    private final PendingTaskRegistry<CouponUseResponseEvent> pendingUseTasks;
+
+    @Value("${coupon-api.task.redis-notify.enabled:false}")
+    private boolean enabled;
+
+    @Value("${coupon-api.task.redis-notify.channel:coupon-api:task-completed}")
+    private String channel;
+
+    @Autowired
+    public TaskCompletionNotifier(StringRedisTemplate redisTemplate,
+                                  PendingTaskRegistry<CouponCreateResponseEvent> pendingCreateTasks,
+                                  PendingTaskRegistry<CouponUseResponseEvent> pendingUseTasks) {
+        this.redisTemplate = redisTemplate;
+        this.pendingCreateTasks = pendingCreateTasks;
+        this.pendingUseTasks = pendingUseTasks;
+    }
+
+    public void publishCreateCompleted(CouponCreateResponseEvent event) {
+        if (enabled && event.getStatus() != CouponCreateStatusEnum.PENDING) {
+            publish(CREATE_PREFIX, event.getRequestId(), event.getStatus().name());
+        }
+    }
+
+    public void publishUseCompleted(CouponUseResponseEvent event) {
+        if (enabled && event.getStatus() != CouponUseStatusEnum.PENDING) {
+            publish(USE_PREFIX, event.getRequestId(), event.getStatus().name());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+        if (parts.length != 3) {
+            logger.warn("Ignoring malformed task completion message - Channel: {}", channel);
+            return;
+        }
+
+        try {
+            UUID taskId = UUID.fromString(parts[1]);
+            if (CREATE_PREFIX.equals(parts[0])) {
+                CouponCreateResponseEvent event = new CouponCreateResponseEvent();
+                event.setRequestId(taskId);
+                event.setStatus(CouponCreateStatusEnum.valueOf(parts[2]));
+                pendingCreateTasks.complete(taskId, event);
+            } else if (USE_PREFIX.equals(parts[0])) {
+                CouponUseResponseEvent event = new CouponUseResponseEvent();
+                event.setRequestId(taskId);
+                event.setStatus(CouponUseStatusEnum.valueOf(parts[2]));
+                pendingUseTasks.complete(taskId, event);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed task completion message - Channel: {}", channel, e);
+        }
+    }
+
+    private void publish(String prefix, UUID taskId, String status) {
+        try {
+            redisTemplate.convertAndSend(channel, prefix + ":" + taskId + ":" + status);
+        } catch (Exception e) {
+            logger.warn("Failed to publish task completion - TaskId: {}", taskId, e);
+        }
+    }
+}
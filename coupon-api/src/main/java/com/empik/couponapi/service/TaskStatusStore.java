@@ -0,0 +1,62 @@
+package com.empik.couponapi.service;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Last known status of create and use tasks, read by the {@code /status} endpoints. The implementation is
+ * chosen with {@code coupon-api.task-store}: {@code redis}, {@code off-heap} or {@code tiered}.
+ */
+public interface TaskStatusStore {
+
+    void storeCreateStatus(UUID taskId, CouponCreateStatusEnum status);
+
+    void storeUseStatus(UUID taskId, CouponUseStatusEnum status);
+
+    /**
+     * Stores PENDING for the task unless it already has a status.
+     *
+     * @return {@code true} if this call claimed the task
+     */
+    boolean claimCreateTask(UUID taskId);
+
+    /**
+     * Stores PENDING for the task unless it already has a status.
+     *
+     * @return {@code true} if this call claimed the task
+     */
+    boolean claimUseTask(UUID taskId);
+
+    /**
+     * Forgets a claimed task whose request never reached coupon-service, so its idempotency key can be retried.
+     */
+    void releaseCreateTask(UUID taskId);
+
+    /**
+     * Forgets a claimed task whose request never reached coupon-service, so its idempotency key can be retried.
+     */
+    void releaseUseTask(UUID taskId);
+
+    /**
+     * @return the stored status, or {@code null} if the task is unknown or expired
+     */
+    CouponCreateStatusEnum getCreateStatus(UUID taskId);
+
+    /**
+     * @return the stored status, or {@code null} if the task is unknown or expired
+     */
+    CouponUseStatusEnum getUseStatus(UUID taskId);
+
+    /**
+     * @return how much longer the stored status is kept, or {@link Duration#ZERO} if the task is unknown
+     */
+    Duration getCreateStatusTtl(UUID taskId);
+
+    /**
+     * @return how much longer the stored status is kept, or {@link Duration#ZERO} if the task is unknown
+     */
+    Duration getUseStatusTtl(UUID taskId);
+}
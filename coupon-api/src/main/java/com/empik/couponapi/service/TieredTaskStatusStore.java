@@ -0,0 +1,115 @@
+package com.empik.couponapi.service;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Writes through to a local and a shared store and reads the local one first. A task that is unknown or
+ * still PENDING locally may have been completed by another instance, so those lookups fall through to the
+ * shared store, and a terminal status found there is copied into the local store.
+ */
+public class TieredTaskStatusStore implements TaskStatusStore {
+
+    private final TaskStatusStore local;
+    private final TaskStatusStore shared;
+
+    public TieredTaskStatusStore(TaskStatusStore local, TaskStatusStore shared) {
+        this.local = local;
+        this.shared = shared;
+    }
+
+    @Override
+    public void storeCreateStatus(UUID taskId, CouponCreateStatusEnum status) {
+        local.storeCreateStatus(taskId, status);
+        shared.storeCreateStatus(taskId, status);
+    }
+
+    @Override
+    public void storeUseStatus(UUID taskId, CouponUseStatusEnum status) {
+        local.storeUseStatus(taskId, status);
+        shared.storeUseStatus(taskId, status);
+    }
+
+    /**
+     * The shared store decides the claim, so a task can only be claimed once across instances.
+     */
+    @Override
+    public boolean claimCreateTask(UUID taskId) {
+        if (local.getCreateStatus(taskId) != null || !shared.claimCreateTask(taskId)) {
+            return false;
+        }
+        local.storeCreateStatus(taskId, CouponCreateStatusEnum.PENDING);
+        return true;
+    }
+
+    @Override
+    public boolean claimUseTask(UUID taskId) {
+        if (local.getUseStatus(taskId) != null || !shared.claimUseTask(taskId)) {
+            return false;
+        }
+        local.storeUseStatus(taskId, CouponUseStatusEnum.PENDING);
+        return true;
+    }
+
+    @Override
+    public void releaseCreateTask(UUID taskId) {
+        shared.releaseCreateTask(taskId);
+        local.releaseCreateTask(taskId);
+    }
+
+    @Override
+    public void releaseUseTask(UUID taskId) {
+        shared.releaseUseTask(taskId);
+        local.releaseUseTask(taskId);
+    }
+
+    @Override
+    public CouponCreateStatusEnum getCreateStatus(UUID taskId) {
+        CouponCreateStatusEnum status = local.getCreateStatus(taskId);
+        if (status != null && status != CouponCreateStatusEnum.PENDING) {
+            return status;
+        }
+        CouponCreateStatusEnum sharedStatus = shared.getCreateStatus(taskId);
+        if (sharedStatus == null) {
+            return status;
+        }
+        if (sharedStatus != CouponCreateStatusEnum.PENDING) {
+            local.storeCreateStatus(taskId, sharedStatus);
+        }
+        return sharedStatus;
+    }
+
+    /**
+     * The shared store's expiry wins, since a status copied into the local store gets a fresh TTL there.
+     */
+    @Override
+    public Duration getCreateStatusTtl(UUID taskId) {
+        Duration ttl = shared.getCreateStatusTtl(taskId);
+        return ttl.isZero() ? local.getCreateStatusTtl(taskId) : ttl;
+    }
+
+    @Override
+    public Duration getUseStatusTtl(UUID taskId) {
+        Duration ttl = shared.getUseStatusTtl(taskId);
+        return ttl.isZero() ? local.getUseStatusTtl(taskId) : ttl;
+    }
+
+    @Override
+    public CouponUseStatusEnum getUseStatus(UUID taskId) {
+        CouponUseStatusEnum status = local.getUseStatus(taskId);
+        if (status != null && status != CouponUseStatusEnum.PENDING) {
+            return status;
+        }
+        CouponUseStatusEnum sharedStatus = shared.getUseStatus(taskId);
+        if (sharedStatus == null) {
+            return status;
+        }
+        if (sharedStatus != CouponUseStatusEnum.PENDING) {
+            local.storeUseStatus(taskId, sharedStatus);
+        }
+        return sharedStatus;
+    }
+}
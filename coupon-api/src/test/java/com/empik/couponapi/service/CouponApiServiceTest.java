@@ -0,0 +1,130 @@
+package com.empik.couponapi.service;
+
+import com.empik.couponapi.dto.CouponUseRequestDto;
+import com.empik.couponapi.dto.CouponUseResponseDto;
+import com.empik.couponapi.exception.TooManyRequestsException;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import com.empik.shared.event.CouponUseRequestEvent;
+import com.empik.shared.event.CouponUseResponseEvent;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CouponApiServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final OffHeapTaskStatusStore taskStatusStore =
+            new OffHeapTaskStatusStore(64, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    private final AdmissionControl admissionControl = new AdmissionControl(null, 1);
+    private CouponApiService service;
+
+    @BeforeEach
+    void createService() {
+        doReturn(new CompletableFuture<>()).when(kafkaTemplate).send(any(ProducerRecord.class));
+        ReflectionTestUtils.setField(admissionControl, "enabled", true);
+        service = new CouponApiService(kafkaTemplate, Runnable::run, taskStatusStore,
+                new PendingTaskRegistry<>(), new PendingTaskRegistry<>(), mock(TaskCompletionNotifier.class),
+                mock(CouponStateView.class), admissionControl);
+        ReflectionTestUtils.setField(service, "couponUseRequestTopic", "coupon-use-request");
+        ReflectionTestUtils.setField(service, "storePending", true);
+        ReflectionTestUtils.setField(service, "stripedCodes", Set.of());
+        ReflectionTestUtils.setField(service, "stripes", 8);
+        waitTimeout(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void repeatedIdempotencyKeyIsAnsweredFromTheExistingTask() {
+        CompletableFuture<CouponUseResponseDto> first = service.useCoupon(request("user"), "1.1.1.1", "key");
+        CompletableFuture<CouponUseResponseDto> replay = service.useCoupon(request("user"), "1.1.1.1", "key");
+
+        UUID taskId = firstSentTaskId();
+        reply(taskId, CouponUseStatusEnum.SUCCESS);
+
+        assertEquals(taskId, replay.join().getRequestId());
+        assertEquals(CouponUseStatusEnum.SUCCESS, replay.join().getStatus());
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void coalescedRequestWithAKeyIsAnsweredUnderItsOwnTaskId() {
+        CompletableFuture<CouponUseResponseDto> leader = service.useCoupon(request("user"), "1.1.1.1");
+        CompletableFuture<CouponUseResponseDto> follower = service.useCoupon(request("user"), "1.1.1.1", "key");
+
+        reply(firstSentTaskId(), CouponUseStatusEnum.SUCCESS);
+
+        assertEquals(CouponUseStatusEnum.SUCCESS, follower.join().getStatus());
+        assertNotEquals(leader.join().getRequestId(), follower.join().getRequestId());
+        assertEquals(CouponUseStatusEnum.SUCCESS, taskStatusStore.getUseStatus(follower.join().getRequestId()));
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void coalescedRequestWithAKeyGetsTheReplyThatArrivesAfterTheTimeout() {
+        waitTimeout(Duration.ofMillis(50));
+        CompletableFuture<CouponUseResponseDto> leader = service.useCoupon(request("user"), "1.1.1.1");
+        CompletableFuture<CouponUseResponseDto> follower = service.useCoupon(request("user"), "1.1.1.1", "key");
+
+        assertEquals(CouponUseStatusEnum.PENDING, leader.join().getStatus());
+        assertEquals(CouponUseStatusEnum.PENDING, follower.join().getStatus());
+        UUID followerTaskId = follower.join().getRequestId();
+
+        reply(leader.join().getRequestId(), CouponUseStatusEnum.ALREADY_USED);
+
+        assertEquals(CouponUseStatusEnum.ALREADY_USED, taskStatusStore.getUseStatus(followerTaskId));
+    }
+
+    @Test
+    void shedRequestLeavesItsIdempotencyKeyRetryable() {
+        CompletableFuture<CouponUseResponseDto> inFlight = service.useCoupon(request("other"), "1.1.1.1");
+
+        assertThrows(TooManyRequestsException.class, () -> service.useCoupon(request("user"), "1.1.1.1", "key"));
+
+        reply(firstSentTaskId(), CouponUseStatusEnum.SUCCESS);
+        inFlight.join();
+        service.useCoupon(request("user"), "1.1.1.1", "key");
+        verify(kafkaTemplate, times(2)).send(any(ProducerRecord.class));
+    }
+
+    private void waitTimeout(Duration timeout) {
+        ReflectionTestUtils.setField(service, "taskWaitTimeout", timeout);
+    }
+
+    private void reply(UUID taskId, CouponUseStatusEnum status) {
+        CouponUseResponseEvent event = new CouponUseResponseEvent();
+        event.setRequestId(taskId);
+        event.setStatus(status);
+        service.handleCouponUseResponse(event);
+    }
+
+    private UUID firstSentTaskId() {
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = ArgumentCaptor.captor();
+        verify(kafkaTemplate, atLeastOnce()).send(sent.capture());
+        return ((CouponUseRequestEvent) sent.getAllValues().get(0).value()).getRequestId();
+    }
+
+    private static CouponUseRequestDto request(String userId) {
+        CouponUseRequestDto request = new CouponUseRequestDto();
+        request.setCode("SUMMER10");
+        request.setUserId(userId);
+        return request;
+    }
+}
@@ -0,0 +1,125 @@
+package com.empik.couponapi.service;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapTaskStatusStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    private OffHeapTaskStatusStore store(int capacity) {
+        return new OffHeapTaskStatusStore(capacity, Duration.ofSeconds(5), Duration.ofMinutes(1), now::get);
+    }
+
+    @Test
+    void keepsCreateAndUseStatusesApart() {
+        OffHeapTaskStatusStore store = store(64);
+        UUID taskId = UUID.randomUUID();
+
+        store.storeCreateStatus(taskId, CouponCreateStatusEnum.PENDING);
+        assertEquals(CouponCreateStatusEnum.PENDING, store.getCreateStatus(taskId));
+        assertNull(store.getUseStatus(taskId));
+
+        store.storeCreateStatus(taskId, CouponCreateStatusEnum.CREATED);
+        store.storeUseStatus(taskId, CouponUseStatusEnum.LIMIT_REACHED);
+        assertEquals(CouponCreateStatusEnum.CREATED, store.getCreateStatus(taskId));
+        assertEquals(CouponUseStatusEnum.LIMIT_REACHED, store.getUseStatus(taskId));
+    }
+
+    @Test
+    void expiresPendingBeforeTerminalStatuses() {
+        OffHeapTaskStatusStore store = store(64);
+        UUID pending = UUID.randomUUID();
+        UUID done = UUID.randomUUID();
+        store.storeUseStatus(pending, CouponUseStatusEnum.PENDING);
+        store.storeUseStatus(done, CouponUseStatusEnum.SUCCESS);
+
+        now.addAndGet(Duration.ofSeconds(5).toMillis());
+        assertNull(store.getUseStatus(pending));
+        assertEquals(CouponUseStatusEnum.SUCCESS, store.getUseStatus(done));
+
+        now.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertNull(store.getUseStatus(done));
+    }
+
+    @Test
+    void claimsATaskOnlyOnceWhileItIsLive() {
+        OffHeapTaskStatusStore store = store(64);
+        UUID taskId = UUID.randomUUID();
+
+        assertTrue(store.claimUseTask(taskId));
+        assertFalse(store.claimUseTask(taskId));
+        assertTrue(store.claimCreateTask(taskId));
+        assertEquals(CouponUseStatusEnum.PENDING, store.getUseStatus(taskId));
+
+        store.storeUseStatus(taskId, CouponUseStatusEnum.SUCCESS);
+        assertFalse(store.claimUseTask(taskId));
+        assertEquals(CouponUseStatusEnum.SUCCESS, store.getUseStatus(taskId));
+
+        now.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertTrue(store.claimUseTask(taskId));
+    }
+
+    @Test
+    void releasedClaimCanBeClaimedAgain() {
+        OffHeapTaskStatusStore store = store(64);
+        UUID taskId = UUID.randomUUID();
+        assertTrue(store.claimCreateTask(taskId));
+        assertTrue(store.claimUseTask(taskId));
+
+        store.releaseCreateTask(taskId);
+
+        assertNull(store.getCreateStatus(taskId));
+        assertEquals(CouponUseStatusEnum.PENDING, store.getUseStatus(taskId));
+        assertTrue(store.claimCreateTask(taskId));
+    }
+
+    @Test
+    void staysWithinCapacityByEvictingTheEarliestExpiry() {
+        OffHeapTaskStatusStore store = store(1_000);
+        assertEquals(1_024, store.capacity());
+        assertEquals(1_024L * OffHeapTaskStatusStore.SLOT_BYTES, store.memoryBytes());
+
+        for (int i = 0; i < 10_000; i++) {
+            now.incrementAndGet();
+            store.storeCreateStatus(UUID.randomUUID(), CouponCreateStatusEnum.CREATED);
+        }
+        UUID latest = UUID.randomUUID();
+        store.storeCreateStatus(latest, CouponCreateStatusEnum.ALREADY_EXISTS);
+
+        assertEquals(CouponCreateStatusEnum.ALREADY_EXISTS, store.getCreateStatus(latest));
+        assertTrue(store.evictions() >= 10_000 - store.capacity());
+    }
+
+    @Test
+    void rejectsCapacitiesWhoseBufferWouldOverflowAnInt() {
+        int maxCapacity = (1 << 22) * OffHeapTaskStatusStore.BUCKET_SLOTS;
+
+        assertThrows(IllegalArgumentException.class, () -> store(maxCapacity + 1));
+        assertThrows(IllegalArgumentException.class, () -> store(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void reusesExpiredSlotsWithoutEvicting() {
+        OffHeapTaskStatusStore store = store(8);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 8; i++) {
+                store.storeUseStatus(UUID.randomUUID(), CouponUseStatusEnum.PENDING);
+            }
+            now.addAndGet(Duration.ofSeconds(6).toMillis());
+        }
+
+        assertEquals(0, store.evictions());
+    }
+}
@@ -0,0 +1,30 @@
+package com.empik.couponservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class IpApiClientConfig {
+
+    @Value("${ip-api.connect-timeout:500ms}")
+    private Duration connectTimeout;
+
+    @Value("${ip-api.read-timeout:1s}")
+    private Duration readTimeout;
+
+    @Bean
+    public RestTemplate ipApiRestTemplate(RestTemplateBuilder builder) {
+        // The JDK client keeps a keep-alive connection pool shared by all calls
+        return builder
+                .requestFactoryBuilder(ClientHttpRequestFactoryBuilder.jdk())
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .build();
+    }
+}
@@ -1,21 +1,38 @@
 package com.empik.couponservice.config;
 
+import com.empik.shared.codec.CouponEventCodecs;
+import com.empik.shared.codec.EventCodec;
+import com.empik.shared.codec.kafka.BinaryEventDeserializer;
+import com.empik.shared.codec.kafka.BinaryEventSerializer;
+import com.empik.shared.event.CouponBulkCreateRequestEvent;
+import com.empik.shared.event.CouponBulkCreateResponseEvent;
+import com.empik.shared.event.CouponCreateRequestEvent;
 import com.empik.shared.event.CouponCreateResponseEvent;
+import com.empik.shared.event.CouponRedeemedEvent;
+import com.empik.shared.event.CouponStateEvent;
+import com.empik.shared.event.CouponUseRequestEvent;
 import com.empik.shared.event.CouponUseResponseEvent;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.support.serializer.DelegatingByTopicDeserializer;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 @Configuration
 public class KafkaConfig {
@@ -26,6 +43,60 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String kafkaServiceGroup;
 
+    @Value("${kafka.batch.max-poll-records:500}")
+    private int batchMaxPollRecords;
+
+    @Value("${kafka.topics.coupon-state:coupon-state}")
+    private String couponStateTopic;
+
+    @Value("${kafka.topics.coupon-state-partitions:3}")
+    private int couponStatePartitions;
+
+    @Value("${kafka.topics.coupon-create-request}")
+    private String couponCreateRequestTopic;
+
+    @Value("${kafka.topics.coupon-use-request}")
+    private String couponUseRequestTopic;
+
+    @Value("${kafka.topics.coupon-create-response}")
+    private String couponCreateResponseTopic;
+
+    @Value("${kafka.topics.coupon-use-response}")
+    private String couponUseResponseTopic;
+
+    @Value("${kafka.topics.coupon-bulk-create-request:coupon-bulk-create-request}")
+    private String couponBulkCreateRequestTopic;
+
+    @Value("${kafka.topics.coupon-bulk-create-request-partitions:6}")
+    private int couponBulkCreateRequestPartitions;
+
+    @Value("${kafka.topics.coupon-bulk-create-response:coupon-bulk-create-response}")
+    private String couponBulkCreateResponseTopic;
+
+    @Value("${kafka.topics.coupon-redeemed:coupon-redeemed}")
+    private String couponRedeemedTopic;
+
+    @Value("${kafka.topics.coupon-redeemed-partitions:3}")
+    private int couponRedeemedPartitions;
+
+    @Value("${kafka.codec:json}")
+    private String codec;
+
+    @Bean
+    public NewTopic couponStateTopic() {
+        return TopicBuilder.name(couponStateTopic).partitions(couponStatePartitions).compact().build();
+    }
+
+    @Bean
+    public NewTopic couponBulkCreateRequestTopic() {
+        return TopicBuilder.name(couponBulkCreateRequestTopic).partitions(couponBulkCreateRequestPartitions).build();
+    }
+
+    @Bean
+    public NewTopic couponRedeemedTopic() {
+        return TopicBuilder.name(couponRedeemedTopic).partitions(couponRedeemedPartitions).build();
+    }
+
     private Map<String, Object> getProducerProps() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.kafkaServer);
@@ -35,9 +106,28 @@ public class KafkaConfig {
         return configProps;
     }
 
+    /**
+     * With {@code kafka.codec=binary} the events are written with the {@code shared} binary codecs,
+     * chosen by topic; anything else still goes through JSON.
+     */
+    @SuppressWarnings("unchecked")
+    private <V> ProducerFactory<String, V> createProducerFactory() {
+        if (!"binary".equalsIgnoreCase(codec)) {
+            return new DefaultKafkaProducerFactory<>(getProducerProps());
+        }
+        Map<Pattern, Serializer<?>> delegates = Map.of(
+                topic(couponCreateResponseTopic), new BinaryEventSerializer<>(CouponEventCodecs.CREATE_RESPONSE),
+                topic(couponUseResponseTopic), new BinaryEventSerializer<>(CouponEventCodecs.USE_RESPONSE),
+                topic(couponStateTopic), new BinaryEventSerializer<>(CouponEventCodecs.STATE),
+                topic(couponBulkCreateResponseTopic), new BinaryEventSerializer<>(CouponEventCodecs.BULK_CREATE_RESPONSE),
+                topic(couponRedeemedTopic), new BinaryEventSerializer<>(CouponEventCodecs.REDEEMED));
+        Serializer<V> valueSerializer = (Serializer<V>) (Serializer<?>) new DelegatingByTopicSerializer(delegates, new JsonSerializer<>());
+        return new DefaultKafkaProducerFactory<>(getProducerProps(), new StringSerializer(), valueSerializer);
+    }
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
-        return new DefaultKafkaProducerFactory<>(getProducerProps());
+        return createProducerFactory();
     }
 
     @Bean
@@ -47,7 +137,7 @@ public class KafkaConfig {
 
     @Bean
     public ProducerFactory<String, CouponCreateResponseEvent> couponCreateResponseProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(getProducerProps());
+        return createProducerFactory();
     }
 
     @Bean
@@ -57,7 +147,7 @@ public class KafkaConfig {
 
     @Bean
     public ProducerFactory<String, CouponUseResponseEvent> couponUseResponseProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(getProducerProps());
+        return createProducerFactory();
     }
 
     @Bean
@@ -66,7 +156,16 @@ public class KafkaConfig {
     }
 
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ProducerFactory<String, CouponBulkCreateResponseEvent> couponBulkCreateResponseProducerFactory() {
+        return createProducerFactory();
+    }
+
+    @Bean
+    public KafkaTemplate<String, CouponBulkCreateResponseEvent> couponBulkCreateResponseKafkaTemplate() {
+        return new KafkaTemplate<>(couponBulkCreateResponseProducerFactory());
+    }
+
+    private Map<String, Object> getConsumerProps(int maxPollRecords) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, this.kafkaServer);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, this.kafkaServiceGroup);
@@ -74,8 +173,45 @@ public class KafkaConfig {
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1);
-        return new DefaultKafkaConsumerFactory<>(props);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        return props;
+    }
+
+    /**
+     * Binary mode decodes each topic with its own codec and no type headers. Records without the binary
+     * magic byte, e.g. produced before the switch, are read as JSON of the topic's event type.
+     */
+    private ConsumerFactory<String, Object> createConsumerFactory(int maxPollRecords) {
+        if (!"binary".equalsIgnoreCase(codec)) {
+            return new DefaultKafkaConsumerFactory<>(getConsumerProps(maxPollRecords));
+        }
+        DefaultKafkaConsumerFactory<String, Object> factory = new DefaultKafkaConsumerFactory<>(
+                getConsumerProps(maxPollRecords), StringDeserializer::new, this::binaryValueDeserializer);
+        factory.setConfigureDeserializers(false);
+        return factory;
+    }
+
+    private Deserializer<Object> binaryValueDeserializer() {
+        Map<Pattern, Deserializer<?>> delegates = Map.of(
+                topic(couponCreateRequestTopic), binaryDeserializer(CouponEventCodecs.CREATE_REQUEST, CouponCreateRequestEvent.class),
+                topic(couponUseRequestTopic), binaryDeserializer(CouponEventCodecs.USE_REQUEST, CouponUseRequestEvent.class),
+                topic(couponStateTopic), binaryDeserializer(CouponEventCodecs.STATE, CouponStateEvent.class),
+                topic(couponBulkCreateRequestTopic), binaryDeserializer(CouponEventCodecs.BULK_CREATE_REQUEST, CouponBulkCreateRequestEvent.class),
+                topic(couponRedeemedTopic), binaryDeserializer(CouponEventCodecs.REDEEMED, CouponRedeemedEvent.class));
+        return new DelegatingByTopicDeserializer(delegates, new JsonDeserializer<>().trustedPackages("*"));
+    }
+
+    private static <T> Deserializer<T> binaryDeserializer(EventCodec<T> codec, Class<T> type) {
+        return new BinaryEventDeserializer<>(codec, new JsonDeserializer<>(type, false));
+    }
+
+    private static Pattern topic(String name) {
+        return Pattern.compile(Pattern.quote(name));
+    }
+
+    @Bean
+    public ConsumerFactory<String, Object> consumerFactory() {
+        return createConsumerFactory(1);
     }
 
     @Bean
@@ -86,4 +222,19 @@ public class KafkaConfig {
         factory.setConcurrency(3);
         return factory;
     }
+
+    @Bean
+    public ConsumerFactory<String, Object> batchConsumerFactory() {
+        return createConsumerFactory(batchMaxPollRecords);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setConcurrency(3);
+        factory.setBatchListener(true);
+        return factory;
+    }
 }
\ No newline at end of file
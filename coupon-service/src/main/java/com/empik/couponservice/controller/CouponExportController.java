@@ -0,0 +1,62 @@
+package com.empik.couponservice.controller;
+
+import com.empik.couponservice.service.CouponUsageExportService;
+import com.empik.couponservice.service.CouponUsageExportService.Format;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/export")
+public class CouponExportController {
+
+    private final CouponUsageExportService couponUsageExportService;
+
+    @Autowired
+    public CouponExportController(CouponUsageExportService couponUsageExportService) {
+        this.couponUsageExportService = couponUsageExportService;
+    }
+
+    /**
+     * Writes the export synchronously to the response, so it is not bound by the async request timeout.
+     * An interrupted download can be resumed with the {@code cursor} of the last row received.
+     */
+    @GetMapping("/usages")
+    public void exportUsages(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                             @RequestParam(defaultValue = "csv") String format,
+                             @RequestParam(required = false) String cursor,
+                             HttpServletResponse response) throws IOException {
+        Format exportFormat = switch (format.toLowerCase()) {
+            case "csv" -> Format.CSV;
+            case "ndjson" -> Format.NDJSON;
+            default -> null;
+        };
+        if (exportFormat == null || !from.isBefore(to)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        if (exportFormat == Format.CSV) {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"coupon-usages.csv\"");
+        } else {
+            response.setContentType("application/x-ndjson;charset=UTF-8");
+        }
+        try {
+            couponUsageExportService.export(from, to, cursor, exportFormat, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            // A malformed cursor is rejected before anything is written
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.empik.couponservice.controller;
+
+import com.empik.couponservice.dto.CouponUsageStatsDto;
+import com.empik.couponservice.service.CouponCatalogService;
+import com.empik.couponservice.service.CouponCatalogService.CouponSnapshot;
+import com.empik.couponservice.service.CouponUsageStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/stats")
+public class CouponStatsController {
+
+    private static final Duration MAX_RANGE = Duration.ofDays(366);
+
+    private final CouponCatalogService couponCatalogService;
+    private final CouponUsageStatsService couponUsageStatsService;
+
+    @Autowired
+    public CouponStatsController(CouponCatalogService couponCatalogService,
+                                 CouponUsageStatsService couponUsageStatsService) {
+        this.couponCatalogService = couponCatalogService;
+        this.couponUsageStatsService = couponUsageStatsService;
+    }
+
+    /**
+     * Uses of a coupon per country in hourly ({@code granularity=hour}) or daily buckets. Times are UTC;
+     * the default range is the last 24 hours.
+     */
+    @GetMapping("/coupons/{code}/usage")
+    public ResponseEntity<List<CouponUsageStatsDto>> getCouponUsage(
+            @PathVariable String code,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) String country) {
+        ChronoUnit unit = switch (granularity.toLowerCase()) {
+            case "hour" -> ChronoUnit.HOURS;
+            case "day" -> ChronoUnit.DAYS;
+            default -> null;
+        };
+        LocalDateTime end = to != null ? to : LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        if (unit == null || !start.isBefore(end) || Duration.between(start, end).compareTo(MAX_RANGE) > 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Optional<CouponSnapshot> coupon = couponCatalogService.findByCode(code);
+        if (coupon.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(couponUsageStatsService.findUsage(coupon.get().id(), start, end, unit, country));
+    }
+}
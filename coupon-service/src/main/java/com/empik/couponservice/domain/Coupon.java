@@ -12,7 +12,8 @@ import java.util.UUID;
         name = "coupons",
         indexes = {
                 @Index(name = "idx_code", columnList = "code"),
-                @Index(name = "idx_country_code", columnList = "countryCode")
+                @Index(name = "idx_country_code", columnList = "countryCode"),
+                @Index(name = "idx_created_at", columnList = "createdAt")
         },
         uniqueConstraints = {
                 @UniqueConstraint(name = "uk_code", columnNames = {"code"})
@@ -47,6 +48,12 @@ public class Coupon {
     @Pattern(regexp = "^[A-Z]{2}$", message = "Country code must be 2 uppercase letters")
     private String countryCode;
 
+    /**
+     * Set once the budget has been split over {@code coupon_stripes}; from then on only the stripes are decremented.
+     */
+    @Column(name = "striped", nullable = false, columnDefinition = "boolean default false")
+    private boolean striped;
+
     public Coupon() {
         // Empty constructor for JPA
     }
@@ -99,6 +106,14 @@ public class Coupon {
         this.countryCode = Objects.requireNonNull(countryCode, "Country code cannot be null").toUpperCase();
     }
 
+    public boolean isStriped() {
+        return striped;
+    }
+
+    public void setStriped(boolean striped) {
+        this.striped = striped;
+    }
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
@@ -0,0 +1,79 @@
+package com.empik.couponservice.domain;
+
+import jakarta.persistence.*;
+
+import java.util.Objects;
+import java.util.UUID;
+
+@Entity
+@Table(
+        name = "coupon_stripes",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_coupon_stripe", columnNames = {"coupon_id", "stripe"})
+        }
+)
+public class CouponStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "coupon_id", nullable = false, foreignKey = @ForeignKey(name = "fk_stripe_coupon"))
+    private Coupon coupon;
+
+    @Column(name = "stripe", nullable = false)
+    private Integer stripe;
+
+    @Column(name = "remaining", nullable = false)
+    private Integer remaining;
+
+    public CouponStripe() {
+        // Empty constructor for JPA
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Coupon getCoupon() {
+        return coupon;
+    }
+
+    public void setCoupon(Coupon coupon) {
+        this.coupon = Objects.requireNonNull(coupon, "Coupon cannot be null");
+    }
+
+    public Integer getStripe() {
+        return stripe;
+    }
+
+    public void setStripe(Integer stripe) {
+        this.stripe = stripe;
+    }
+
+    public Integer getRemaining() {
+        return remaining;
+    }
+
+    public void setRemaining(Integer remaining) {
+        this.remaining = remaining;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CouponStripe that)) return false;
+        return Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getId());
+    }
+}
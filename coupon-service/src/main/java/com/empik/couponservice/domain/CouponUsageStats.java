@@ -0,0 +1,81 @@
+package com.empik.couponservice.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read model row: number of redemptions of one coupon from one country within one hour, starting at
+ * {@code bucketStart} (UTC). Written only by {@code CouponUsageStatsService}.
+ */
+@Entity
+@Table(
+        name = "coupon_usage_stats",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_usage_stats_bucket", columnNames = {"coupon_id", "bucket_start", "country_code"})
+        }
+)
+public class CouponUsageStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "coupon_id", nullable = false)
+    private UUID couponId;
+
+    @Column(name = "country_code", nullable = false, length = 2)
+    private String countryCode;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "uses", nullable = false)
+    private Long uses;
+
+    public CouponUsageStats() {
+        // Empty constructor for JPA
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getCouponId() {
+        return couponId;
+    }
+
+    public void setCouponId(UUID couponId) {
+        this.couponId = couponId;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public void setCountryCode(String countryCode) {
+        this.countryCode = countryCode;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public Long getUses() {
+        return uses;
+    }
+
+    public void setUses(Long uses) {
+        this.uses = uses;
+    }
+}
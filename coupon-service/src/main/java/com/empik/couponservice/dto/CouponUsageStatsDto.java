@@ -0,0 +1,43 @@
+package com.empik.couponservice.dto;
+
+import java.time.LocalDateTime;
+
+public class CouponUsageStatsDto {
+
+    private LocalDateTime bucketStart;
+    private String countryCode;
+    private long uses;
+
+    public CouponUsageStatsDto() {
+    }
+
+    public CouponUsageStatsDto(LocalDateTime bucketStart, String countryCode, long uses) {
+        this.bucketStart = bucketStart;
+        this.countryCode = countryCode;
+        this.uses = uses;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public void setCountryCode(String countryCode) {
+        this.countryCode = countryCode;
+    }
+
+    public long getUses() {
+        return uses;
+    }
+
+    public void setUses(long uses) {
+        this.uses = uses;
+    }
+}
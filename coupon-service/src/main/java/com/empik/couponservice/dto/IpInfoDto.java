@@ -14,6 +14,9 @@ public class IpInfoDto {
     @JsonProperty("status")
     private String status;
 
+    @JsonProperty("query")
+    private String query;
+
     public String getCountryCode() {
         return countryCode;
     }
@@ -29,4 +32,12 @@ public class IpInfoDto {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
 }
@@ -2,18 +2,68 @@ package com.empik.couponservice.repository;
 
 import com.empik.couponservice.domain.Coupon;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface CouponRepository extends JpaRepository<Coupon, UUID> {
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<Coupon> findByCodeIgnoreCase(String code);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Coupon c WHERE c.id = :id")
+    Optional<Coupon> findByIdForUpdate(@Param("id") UUID id);
+
     boolean existsByCodeIgnoreCase(String code);
+
+    /**
+     * @param codes upper-cased codes
+     */
+    @Query("SELECT c FROM Coupon c WHERE UPPER(c.code) IN :codes")
+    List<Coupon> findByUpperCodeIn(@Param("codes") Collection<String> codes);
+
+    @Query("SELECT c FROM Coupon c WHERE c.code > :after ORDER BY c.code")
+    List<Coupon> findCouponsAfter(@Param("after") String after, Pageable pageable);
+
+    @Query("SELECT c.code FROM Coupon c WHERE c.code > :after ORDER BY c.code")
+    List<String> findCodesAfter(@Param("after") String after, Pageable pageable);
+
+    @Query("SELECT c FROM Coupon c WHERE c.createdAt >= :since AND c.striped = false AND c.code > :after ORDER BY c.code")
+    List<Coupon> findUnstripedCouponsCreatedSince(@Param("since") LocalDateTime since, @Param("after") String after, Pageable pageable);
+
+    @Query("SELECT c.code FROM Coupon c WHERE c.createdAt >= :since AND c.code > :after ORDER BY c.code")
+    List<String> findCodesCreatedSince(@Param("since") LocalDateTime since, @Param("after") String after, Pageable pageable);
+
+    /**
+     * @param codes upper-cased codes
+     * @return the upper-cased codes that exist in any casing
+     */
+    @Query("SELECT UPPER(c.code) FROM Coupon c WHERE UPPER(c.code) IN :codes")
+    List<String> findExistingCodes(@Param("codes") Collection<String> codes);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Coupon c WHERE c.id IN :ids ORDER BY c.id")
+    List<Coupon> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Leaves striped coupons alone; their uses are taken from {@code coupon_stripes}.
+     */
+    @Modifying
+    @Query("UPDATE Coupon c SET c.currentUses = c.currentUses + 1 " +
+            "WHERE c.id = :id AND c.currentUses < c.maxUses AND c.striped = false")
+    int incrementUsesIfBelowLimit(@Param("id") UUID id);
+
+    @Query("SELECT c.striped FROM Coupon c WHERE c.id = :id")
+    Optional<Boolean> findStripedById(@Param("id") UUID id);
 }
@@ -0,0 +1,39 @@
+package com.empik.couponservice.repository;
+
+import com.empik.couponservice.domain.CouponStripe;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CouponStripeRepository extends JpaRepository<CouponStripe, UUID> {
+
+    boolean existsByCouponId(UUID couponId);
+
+    @Modifying
+    @Query("UPDATE CouponStripe s SET s.remaining = s.remaining - 1 " +
+            "WHERE s.coupon.id = :couponId AND s.stripe = :stripe AND s.remaining > 0")
+    int decrementIfAvailable(@Param("couponId") UUID couponId, @Param("stripe") int stripe);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CouponStripe s WHERE s.coupon.id = :couponId ORDER BY s.stripe")
+    List<CouponStripe> findByCouponIdForUpdate(@Param("couponId") UUID couponId);
+
+    /**
+     * Folds the stripe budgets back into {@code coupons.current_uses} for every striped coupon that drifted.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE coupons c SET current_uses = c.max_uses - s.remaining " +
+            "FROM (SELECT coupon_id, SUM(remaining) AS remaining FROM coupon_stripes GROUP BY coupon_id) s " +
+            "WHERE c.id = s.coupon_id AND c.current_uses <> c.max_uses - s.remaining", nativeQuery = true)
+    int syncCouponUses();
+}
@@ -1,14 +1,24 @@
 package com.empik.couponservice.repository;
 
-import com.empik.couponservice.domain.Coupon;
 import com.empik.couponservice.domain.CouponUsage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface CouponUsageRepository extends JpaRepository<CouponUsage, UUID> {
 
-    boolean existsByCouponAndUserId(Coupon coupon, String userId);
+    boolean existsByCouponIdAndUserId(UUID couponId, String userId);
+
+    @Query("SELECT u.userId FROM CouponUsage u WHERE u.coupon.id = :couponId AND u.userId > :after ORDER BY u.userId")
+    List<String> findUserIdsAfter(@Param("couponId") UUID couponId, @Param("after") String after, Pageable pageable);
+
+    @Query("SELECT u.coupon.id, u.userId FROM CouponUsage u WHERE u.coupon.id IN :couponIds AND u.userId IN :userIds")
+    List<Object[]> findUsages(@Param("couponIds") Collection<UUID> couponIds, @Param("userIds") Collection<String> userIds);
 }
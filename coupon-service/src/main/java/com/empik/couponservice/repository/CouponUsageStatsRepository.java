@@ -0,0 +1,21 @@
+package com.empik.couponservice.repository;
+
+import com.empik.couponservice.domain.CouponUsageStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CouponUsageStatsRepository extends JpaRepository<CouponUsageStats, UUID> {
+
+    @Query("SELECT s FROM CouponUsageStats s WHERE s.couponId = :couponId "
+            + "AND s.bucketStart >= :from AND s.bucketStart < :to ORDER BY s.bucketStart, s.countryCode")
+    List<CouponUsageStats> findBuckets(@Param("couponId") UUID couponId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,56 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.domain.CouponUsage;
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.couponservice.repository.CouponUsageRepository;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.UUID;
+
+/**
+ * Lock-free redemption: the usage insert relies on {@code uk_user_coupon} to detect repeated use and
+ * a single guarded {@code UPDATE} enforces the limit. The usage is inserted first so the row lock
+ * taken by the {@code UPDATE} is only held until commit. Striped coupons are skipped by the guarded {@code UPDATE}
+ * and take their use from the stripes; their stripes already exist, so no coupon row lock is requested.
+ */
+@Service
+@ConditionalOnProperty(name = "coupon.redemption.engine", havingValue = "atomic")
+public class AtomicCouponRedemptionEngine implements CouponRedemptionEngine {
+
+    private final CouponRepository couponRepository;
+    private final CouponUsageRepository couponUsageRepository;
+    private final StripedCouponRedemptionEngine stripedCouponRedemptionEngine;
+
+    @Autowired
+    public AtomicCouponRedemptionEngine(CouponRepository couponRepository,
+                                        CouponUsageRepository couponUsageRepository,
+                                        StripedCouponRedemptionEngine stripedCouponRedemptionEngine) {
+        this.couponRepository = couponRepository;
+        this.couponUsageRepository = couponUsageRepository;
+        this.stripedCouponRedemptionEngine = stripedCouponRedemptionEngine;
+    }
+
+    @Override
+    @Transactional
+    public CouponUseStatusEnum redeem(UUID couponId, String userId, String countryCode) {
+        CouponUsage couponUsage = new CouponUsage();
+        couponUsage.setCoupon(couponRepository.getReferenceById(couponId));
+        couponUsage.setUserId(userId);
+        couponUsage.setUserCountryCode(countryCode);
+        couponUsageRepository.saveAndFlush(couponUsage);
+
+        if (couponRepository.incrementUsesIfBelowLimit(couponId) == 0
+                && !(couponRepository.findStripedById(couponId).orElse(false)
+                && stripedCouponRedemptionEngine.consume(couponId, stripedCouponRedemptionEngine.stripeFor(userId)))) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return CouponUseStatusEnum.LIMIT_REACHED;
+        }
+
+        return CouponUseStatusEnum.SUCCESS;
+    }
+}
@@ -0,0 +1,193 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.service.CouponCatalogService.CouponSnapshot;
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import com.empik.shared.event.CouponCreateRequestEvent;
+import com.empik.shared.event.CouponUseRequestEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Batch counterpart of the {@link CouponService} listeners, enabled with {@code kafka.batch.enabled}.
+ * Each poll is written in one transaction and answered with one flushed producer batch. If the batch
+ * write fails, the poll is replayed record by record through the single-event path.
+ */
+@Service
+public class CouponBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponBatchService.class);
+
+    private final CouponCatalogService couponCatalogService;
+    private final CouponCodeFilter couponCodeFilter;
+    private final RedeemedUserIndex redeemedUserIndex;
+    private final IpInfoService ipInfoService;
+    private final CouponService couponService;
+    private final CouponBatchWriter couponBatchWriter;
+    private final StripedCouponRedemptionEngine stripedCouponRedemptionEngine;
+    private final CouponResponsePublisher couponResponsePublisher;
+    private final CouponUsageStatsService couponUsageStatsService;
+
+    @Autowired
+    public CouponBatchService(CouponCatalogService couponCatalogService,
+                              CouponCodeFilter couponCodeFilter,
+                              RedeemedUserIndex redeemedUserIndex,
+                              IpInfoService ipInfoService,
+                              CouponService couponService,
+                              CouponBatchWriter couponBatchWriter,
+                              StripedCouponRedemptionEngine stripedCouponRedemptionEngine,
+                              CouponResponsePublisher couponResponsePublisher,
+                              CouponUsageStatsService couponUsageStatsService) {
+        this.couponCatalogService = couponCatalogService;
+        this.couponCodeFilter = couponCodeFilter;
+        this.redeemedUserIndex = redeemedUserIndex;
+        this.ipInfoService = ipInfoService;
+        this.couponService = couponService;
+        this.couponBatchWriter = couponBatchWriter;
+        this.stripedCouponRedemptionEngine = stripedCouponRedemptionEngine;
+        this.couponResponsePublisher = couponResponsePublisher;
+        this.couponUsageStatsService = couponUsageStatsService;
+    }
+
+    @KafkaListener(topics = "coupon-create-request", groupId = "coupon-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory", autoStartup = "${kafka.batch.enabled:false}")
+    public void consumeCouponCreateRequestEvents(List<ConsumerRecord<String, CouponCreateRequestEvent>> records) {
+        logger.info("Received coupon create batch - Size: {}", records.size());
+
+        List<CouponCreateRequestEvent> events = records.stream().map(ConsumerRecord::value).toList();
+        Map<UUID, CouponCreateStatusEnum> statuses;
+        try {
+            statuses = couponBatchWriter.createCoupons(events);
+        } catch (Exception e) {
+            logger.warn("Coupon create batch failed, falling back to single writes - Size: {}", records.size(), e);
+            records.forEach(record -> couponService.createCoupon(record.value(), CouponResponsePublisher.toPartition(record.headers())));
+            couponResponsePublisher.flush();
+            return;
+        }
+
+        for (ConsumerRecord<String, CouponCreateRequestEvent> record : records) {
+            couponResponsePublisher.sendCouponCreateResponse(record.value().getRequestId(),
+                    statuses.get(record.value().getRequestId()), CouponResponsePublisher.toPartition(record.headers()));
+        }
+        couponResponsePublisher.flush();
+    }
+
+    @KafkaListener(topics = "coupon-use-request", groupId = "coupon-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory", autoStartup = "${kafka.batch.enabled:false}")
+    public void consumeCouponUseRequestEvents(List<ConsumerRecord<String, CouponUseRequestEvent>> records) {
+        logger.info("Received coupon use batch - Size: {}", records.size());
+
+        Map<String, CouponSnapshot> coupons = couponCatalogService.findByCodes(records.stream()
+                .map(record -> record.value().getCode())
+                .filter(couponCodeFilter::mightContain)
+                .toList());
+
+        Map<UUID, CouponUseStatusEnum> statuses = new HashMap<>();
+        List<ConsumerRecord<String, CouponUseRequestEvent>> eligible = new ArrayList<>();
+        for (ConsumerRecord<String, CouponUseRequestEvent> record : records) {
+            CouponSnapshot coupon = coupons.get(record.value().getCode().toUpperCase());
+            if (coupon == null) {
+                statuses.put(record.value().getRequestId(), CouponUseStatusEnum.NOT_EXISTS);
+            } else if (coupon.exhausted()) {
+                statuses.put(record.value().getRequestId(), CouponUseStatusEnum.LIMIT_REACHED);
+            } else if (redeemedUserIndex.isRedeemed(coupon.id(), record.value().getUserId())) {
+                statuses.put(record.value().getRequestId(), CouponUseStatusEnum.ALREADY_USED);
+            } else if (stripedCouponRedemptionEngine.stripeOf(record.headers()) != null) {
+                // Striped coupons must not be locked as a whole, they go through the per-stripe path
+                couponService.useCoupon(record.value(), CouponResponsePublisher.toPartition(record.headers()),
+                        stripedCouponRedemptionEngine.stripeOf(record.headers()));
+            } else {
+                eligible.add(record);
+            }
+        }
+
+        Map<String, String> countryCodes = resolveCountryCodes(eligible);
+        List<CouponBatchWriter.Redemption> redemptions = new ArrayList<>();
+        for (ConsumerRecord<String, CouponUseRequestEvent> record : eligible) {
+            CouponUseRequestEvent event = record.value();
+            CouponSnapshot coupon = coupons.get(event.getCode().toUpperCase());
+            String countryCode = countryCodes.get(event.getIpAddress());
+            if (countryCode == null) {
+                statuses.put(event.getRequestId(), CouponUseStatusEnum.COUNTRY_ERROR);
+            } else if (!countryCode.equalsIgnoreCase(coupon.countryCode())) {
+                statuses.put(event.getRequestId(), CouponUseStatusEnum.COUNTRY_NOT_SUPPORTED);
+            } else {
+                redemptions.add(new CouponBatchWriter.Redemption(event.getRequestId(), coupon.id(), event.getUserId(), countryCode));
+            }
+        }
+
+        if (!redemptions.isEmpty()) {
+            try {
+                Map<UUID, CouponUseStatusEnum> redeemed = couponBatchWriter.redeem(redemptions);
+                statuses.putAll(redeemed);
+                for (ConsumerRecord<String, CouponUseRequestEvent> record : eligible) {
+                    CouponUseStatusEnum status = redeemed.get(record.value().getRequestId());
+                    if (status == null && !statuses.containsKey(record.value().getRequestId())) {
+                        // Striped since the catalog was loaded, the stripes are decremented on the single-event path
+                        couponService.useCoupon(record.value(), CouponResponsePublisher.toPartition(record.headers()), null);
+                        continue;
+                    }
+                    CouponSnapshot coupon = coupons.get(record.value().getCode().toUpperCase());
+                    if (status == CouponUseStatusEnum.LIMIT_REACHED) {
+                        couponCatalogService.couponExhausted(coupon);
+                    } else if (status == CouponUseStatusEnum.SUCCESS) {
+                        redeemedUserIndex.markRedeemed(coupon.id(), record.value().getUserId());
+                        couponUsageStatsService.couponRedeemed(coupon, record.value().getUserId(),
+                                countryCodes.get(record.value().getIpAddress()));
+                    } else if (status == CouponUseStatusEnum.ALREADY_USED) {
+                        redeemedUserIndex.markRedeemed(coupon.id(), record.value().getUserId());
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Coupon use batch failed, falling back to single writes - Size: {}", redemptions.size(), e);
+                for (ConsumerRecord<String, CouponUseRequestEvent> record : eligible) {
+                    if (!statuses.containsKey(record.value().getRequestId())) {
+                        couponService.useCoupon(record.value(), CouponResponsePublisher.toPartition(record.headers()),
+                                stripedCouponRedemptionEngine.stripeOf(record.headers()));
+                    }
+                }
+                sendUseResponses(records, statuses);
+                return;
+            }
+        }
+
+        sendUseResponses(records, statuses);
+    }
+
+    private Map<String, String> resolveCountryCodes(List<ConsumerRecord<String, CouponUseRequestEvent>> records) {
+        if (records.isEmpty()) {
+            return Map.of();
+        }
+        Set<String> ips = records.stream().map(record -> record.value().getIpAddress()).collect(Collectors.toSet());
+        try {
+            return ipInfoService.getCountryCodesByIp(ips);
+        } catch (Exception e) {
+            logger.error("Could not determine country codes for batch - Size: {}", ips.size(), e);
+            return Map.of();
+        }
+    }
+
+    private void sendUseResponses(List<ConsumerRecord<String, CouponUseRequestEvent>> records,
+                                  Map<UUID, CouponUseStatusEnum> statuses) {
+        for (ConsumerRecord<String, CouponUseRequestEvent> record : records) {
+            CouponUseStatusEnum status = statuses.get(record.value().getRequestId());
+            if (status != null) {
+                couponResponsePublisher.sendCouponUseResponse(record.value().getRequestId(), status,
+                        CouponResponsePublisher.toPartition(record.headers()));
+            }
+        }
+        couponResponsePublisher.flush();
+    }
+}
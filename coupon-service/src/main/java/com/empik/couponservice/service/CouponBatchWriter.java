@@ -0,0 +1,131 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.domain.Coupon;
+import com.empik.couponservice.domain.CouponUsage;
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.couponservice.repository.CouponUsageRepository;
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import com.empik.shared.event.CouponCreateRequestEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a whole poll of requests in one transaction. Inserts go through {@code saveAll} so that
+ * Hibernate can group them into JDBC batches (see {@code JpaConfig}).
+ */
+@Service
+public class CouponBatchWriter {
+
+    private final CouponRepository couponRepository;
+    private final CouponUsageRepository couponUsageRepository;
+    private final CouponCatalogService couponCatalogService;
+    private final CouponCodeFilter couponCodeFilter;
+
+    @Autowired
+    public CouponBatchWriter(CouponRepository couponRepository,
+                             CouponUsageRepository couponUsageRepository,
+                             CouponCatalogService couponCatalogService,
+                             CouponCodeFilter couponCodeFilter) {
+        this.couponRepository = couponRepository;
+        this.couponUsageRepository = couponUsageRepository;
+        this.couponCatalogService = couponCatalogService;
+        this.couponCodeFilter = couponCodeFilter;
+    }
+
+    @Transactional
+    public Map<UUID, CouponCreateStatusEnum> createCoupons(List<CouponCreateRequestEvent> events) {
+        Set<String> codes = events.stream()
+                .map(event -> event.getCode().toUpperCase())
+                .collect(Collectors.toSet());
+        Set<String> candidates = codes.stream().filter(couponCodeFilter::mightContain).collect(Collectors.toSet());
+        Set<String> takenCodes = candidates.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(couponRepository.findExistingCodes(candidates));
+
+        Map<UUID, CouponCreateStatusEnum> statuses = new LinkedHashMap<>();
+        List<Coupon> coupons = new ArrayList<>();
+        for (CouponCreateRequestEvent event : events) {
+            if (!takenCodes.add(event.getCode().toUpperCase())) {
+                statuses.put(event.getRequestId(), CouponCreateStatusEnum.ALREADY_EXISTS);
+                continue;
+            }
+
+            Coupon coupon = new Coupon();
+            coupon.setCode(event.getCode());
+            coupon.setCountryCode(event.getCountryCode());
+            coupon.setMaxUses(event.getMaxUsage());
+            coupons.add(coupon);
+            statuses.put(event.getRequestId(), CouponCreateStatusEnum.CREATED);
+        }
+
+        couponRepository.saveAll(coupons);
+        couponRepository.flush();
+        coupons.forEach(couponCatalogService::couponCreated);
+        return statuses;
+    }
+
+    /**
+     * Coupon rows are locked in id order so that concurrent batches touching the same coupons cannot deadlock.
+     * Requests for striped coupons get no status and must be redeemed through the single-event path.
+     */
+    @Transactional
+    public Map<UUID, CouponUseStatusEnum> redeem(List<Redemption> redemptions) {
+        Set<UUID> couponIds = redemptions.stream().map(Redemption::couponId).collect(Collectors.toSet());
+        Set<String> userIds = redemptions.stream().map(Redemption::userId).collect(Collectors.toSet());
+
+        Map<UUID, Coupon> coupons = couponRepository.findAllByIdForUpdate(couponIds).stream()
+                .collect(Collectors.toMap(Coupon::getId, Function.identity()));
+        Set<String> usedKeys = new HashSet<>();
+        for (Object[] usage : couponUsageRepository.findUsages(couponIds, userIds)) {
+            usedKeys.add(usageKey((UUID) usage[0], (String) usage[1]));
+        }
+
+        Map<UUID, CouponUseStatusEnum> statuses = new HashMap<>();
+        List<CouponUsage> couponUsages = new ArrayList<>();
+        for (Redemption redemption : redemptions) {
+            Coupon coupon = coupons.get(redemption.couponId());
+            if (coupon == null) {
+                statuses.put(redemption.requestId(), CouponUseStatusEnum.NOT_EXISTS);
+            } else if (coupon.isStriped()) {
+                continue;
+            } else if (!usedKeys.add(usageKey(redemption.couponId(), redemption.userId()))) {
+                statuses.put(redemption.requestId(), CouponUseStatusEnum.ALREADY_USED);
+            } else if (coupon.getCurrentUses() >= coupon.getMaxUses()) {
+                statuses.put(redemption.requestId(), CouponUseStatusEnum.LIMIT_REACHED);
+            } else {
+                CouponUsage couponUsage = new CouponUsage();
+                couponUsage.setCoupon(coupon);
+                couponUsage.setUserId(redemption.userId());
+                couponUsage.setUserCountryCode(redemption.countryCode());
+                couponUsages.add(couponUsage);
+
+                coupon.setCurrentUses(coupon.getCurrentUses() + 1);
+                statuses.put(redemption.requestId(), CouponUseStatusEnum.SUCCESS);
+            }
+        }
+
+        couponUsageRepository.saveAll(couponUsages);
+        couponUsageRepository.flush();
+        return statuses;
+    }
+
+    private static String usageKey(UUID couponId, String userId) {
+        return couponId + ":" + userId;
+    }
+
+    public record Redemption(UUID requestId, UUID couponId, String userId, String countryCode) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.empik.couponservice.service;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.event.CouponBulkCreateRequestEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class CouponBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponBulkService.class);
+
+    private final CouponBulkWriter couponBulkWriter;
+    private final CouponResponsePublisher couponResponsePublisher;
+
+    @Autowired
+    public CouponBulkService(CouponBulkWriter couponBulkWriter, CouponResponsePublisher couponResponsePublisher) {
+        this.couponBulkWriter = couponBulkWriter;
+        this.couponResponsePublisher = couponResponsePublisher;
+    }
+
+    @KafkaListener(topics = "${kafka.topics.coupon-bulk-create-request:coupon-bulk-create-request}", groupId = "coupon-service-group")
+    public void consumeCouponBulkCreateRequestEvent(CouponBulkCreateRequestEvent event) {
+        logger.info("Received coupon bulk create request - JobId: {}, FirstRow: {}, Size: {}",
+                event.getJobId(), event.getFirstRow(), event.getRows().size());
+
+        List<CouponCreateStatusEnum> statuses;
+        try {
+            statuses = couponBulkWriter.insert(event.getRows());
+        } catch (Exception e) {
+            logger.error("Error creating coupon bulk - JobId: {}, FirstRow: {}", event.getJobId(), event.getFirstRow(), e);
+            statuses = Collections.nCopies(event.getRows().size(), CouponCreateStatusEnum.FAILED);
+        }
+
+        couponResponsePublisher.sendCouponBulkCreateResponse(event.getJobId(), event.getFirstRow(), statuses);
+    }
+}
@@ -0,0 +1,118 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.domain.Coupon;
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.event.CouponBulkRow;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts bulk rows with one JDBC batch of {@code INSERT ... ON CONFLICT DO NOTHING}, bypassing the entity
+ * manager. {@code uk_code} is case-sensitive, so codes that already exist in another casing, in the table or earlier
+ * in the same batch, are filtered out first, like the single create path does with {@code existsByCodeIgnoreCase}.
+ * Exact duplicates inserted concurrently still report an update count of 0. This relies on per-statement update
+ * counts, so the PostgreSQL driver's {@code reWriteBatchedInserts} must stay disabled.
+ */
+@Service
+public class CouponBulkWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO coupons (id, code, country_code, max_uses, current_uses, striped, created_at) "
+            + "VALUES (?, ?, ?, ?, 0, false, ?) ON CONFLICT (code) DO NOTHING";
+
+    private static final Pattern COUNTRY_CODE = Pattern.compile("^[A-Z]{2}$");
+    private static final int MAX_CODE_LENGTH = 64;
+    private static final int MAX_USES = 1_000_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CouponRepository couponRepository;
+    private final CouponCodeFilter couponCodeFilter;
+    private final CouponCatalogService couponCatalogService;
+
+    @Autowired
+    public CouponBulkWriter(JdbcTemplate jdbcTemplate,
+                            CouponRepository couponRepository,
+                            CouponCodeFilter couponCodeFilter,
+                            CouponCatalogService couponCatalogService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.couponRepository = couponRepository;
+        this.couponCodeFilter = couponCodeFilter;
+        this.couponCatalogService = couponCatalogService;
+    }
+
+    /**
+     * @return one status per row, in row order; missing and invalid rows are FAILED
+     */
+    @Transactional
+    public List<CouponCreateStatusEnum> insert(List<CouponBulkRow> rows) {
+        Set<String> candidates = rows.stream()
+                .filter(CouponBulkWriter::isValid)
+                .map(row -> row.getCode().toUpperCase())
+                .filter(couponCodeFilter::mightContain)
+                .collect(Collectors.toSet());
+        Set<String> takenCodes = candidates.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(couponRepository.findExistingCodes(candidates));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<CouponCreateStatusEnum> statuses = new ArrayList<>(rows.size());
+        List<Coupon> coupons = new ArrayList<>(rows.size());
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (CouponBulkRow row : rows) {
+            if (!isValid(row)) {
+                statuses.add(CouponCreateStatusEnum.FAILED);
+                continue;
+            }
+            if (!takenCodes.add(row.getCode().toUpperCase())) {
+                statuses.add(CouponCreateStatusEnum.ALREADY_EXISTS);
+                continue;
+            }
+            Coupon coupon = new Coupon();
+            coupon.setId(UUID.randomUUID());
+            coupon.setCode(row.getCode());
+            coupon.setCountryCode(row.getCountryCode());
+            coupon.setMaxUses(row.getMaxUsage());
+            coupon.setCurrentUses(0);
+            coupon.setCreatedAt(now);
+            coupons.add(coupon);
+            args.add(new Object[]{coupon.getId(), coupon.getCode(), coupon.getCountryCode(), coupon.getMaxUses(), now});
+            // Decided once the batch has run
+            statuses.add(null);
+        }
+
+        int[] counts = args.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(INSERT_SQL, args);
+
+        int statement = 0;
+        for (int i = 0; i < statuses.size(); i++) {
+            if (statuses.get(i) != null) {
+                continue;
+            }
+            Coupon coupon = coupons.get(statement);
+            if (counts[statement++] == 0) {
+                statuses.set(i, CouponCreateStatusEnum.ALREADY_EXISTS);
+            } else {
+                couponCatalogService.couponCreated(coupon);
+                statuses.set(i, CouponCreateStatusEnum.CREATED);
+            }
+        }
+        return statuses;
+    }
+
+    private static boolean isValid(CouponBulkRow row) {
+        return row != null
+                && row.getCode() != null && !row.getCode().isBlank() && row.getCode().length() <= MAX_CODE_LENGTH
+                && row.getCountryCode() != null && COUNTRY_CODE.matcher(row.getCountryCode().toUpperCase()).matches()
+                && row.getMaxUsage() >= 1 && row.getMaxUsage() <= MAX_USES;
+    }
+}
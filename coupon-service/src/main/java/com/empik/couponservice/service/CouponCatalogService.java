@@ -0,0 +1,279 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.domain.Coupon;
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.shared.enums.CouponStateEnum;
+import com.empik.shared.event.CouponStateEvent;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * In-process, read-through catalog of coupon metadata keyed by upper-cased code. Lets the use pipeline reject
+ * unknown, exhausted and wrong-country requests without touching the database.
+ * <p>
+ * Replicas keep each other in sync over the log-compacted {@code kafka.topics.coupon-state} topic: every instance
+ * is assigned all of its partitions, without group management, starting at the end, and applies creations and
+ * exhaustions to its cache. coupon-api replays the
+ * same topic to reject use requests for missing and exhausted coupons at the edge. Unknown codes are cached only for
+ * {@code coupon.catalog.negative-ttl}, which bounds staleness for coupons created outside the Kafka pipeline.
+ * Such coupons reach the topic through the startup seed and the periodic catch-up of recently created rows.
+ */
+@Service
+public class CouponCatalogService implements ConsumerSeekAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponCatalogService.class);
+
+    private final CouponRepository couponRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final CouponCodeFilter couponCodeFilter;
+    private final LoadingCache<String, Optional<CouponSnapshot>> catalog;
+
+    @Value("${kafka.topics.coupon-state:coupon-state}")
+    private String couponStateTopic;
+
+    @Value("${coupon.state.seed-on-startup:true}")
+    private boolean seedOnStartup;
+
+    @Value("${coupon.state.seed-page-size:1000}")
+    private int seedPageSize;
+
+    @Value("${coupon.state.catch-up-overlap-ms:60000}")
+    private long catchUpOverlapMs;
+
+    private volatile LocalDateTime caughtUpFrom = LocalDateTime.now();
+
+    @Autowired
+    public CouponCatalogService(CouponRepository couponRepository,
+                                KafkaTemplate<String, Object> kafkaTemplate,
+                                CouponCodeFilter couponCodeFilter,
+                                MeterRegistry meterRegistry,
+                                @Value("${coupon.catalog.maximum-size:100000}") long maximumSize,
+                                @Value("${coupon.catalog.ttl:10m}") Duration ttl,
+                                @Value("${coupon.catalog.negative-ttl:5s}") Duration negativeTtl) {
+        this.couponRepository = couponRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.couponCodeFilter = couponCodeFilter;
+        this.catalog = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new SnapshotExpiry(ttl, negativeTtl))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<CouponSnapshot> load(String code) {
+                        return couponRepository.findByCodeIgnoreCase(code).map(CouponSnapshot::of);
+                    }
+
+                    @Override
+                    public Map<String, Optional<CouponSnapshot>> loadAll(Set<? extends String> codes) {
+                        Map<String, Optional<CouponSnapshot>> result = new HashMap<>();
+                        codes.forEach(code -> result.put(code, Optional.empty()));
+                        couponRepository.findByUpperCodeIn(List.copyOf(codes)).forEach(coupon ->
+                                result.put(coupon.getCode().toUpperCase(), Optional.of(CouponSnapshot.of(coupon))));
+                        return result;
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, catalog, "couponCatalog");
+    }
+
+    public Optional<CouponSnapshot> findByCode(String code) {
+        return catalog.get(code.toUpperCase());
+    }
+
+    public Map<String, CouponSnapshot> findByCodes(Collection<String> codes) {
+        Set<String> normalized = codes.stream().map(String::toUpperCase).collect(Collectors.toSet());
+        Map<String, CouponSnapshot> result = new HashMap<>();
+        catalog.getAll(normalized).forEach((code, snapshot) -> snapshot.ifPresent(value -> result.put(code, value)));
+        return result;
+    }
+
+    /**
+     * Announces a new coupon once the surrounding transaction has committed, so that no replica can cache it
+     * before it is visible in the database.
+     */
+    public void couponCreated(Coupon coupon) {
+        CouponStateEvent event = toEvent(CouponSnapshot.of(coupon), CouponStateEnum.ACTIVE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    public void couponExhausted(CouponSnapshot snapshot) {
+        if (snapshot.exhausted()) {
+            return;
+        }
+        CouponSnapshot exhausted = snapshot.withExhausted();
+        catalog.put(exhausted.code().toUpperCase(), Optional.of(exhausted));
+        publish(toEvent(exhausted, CouponStateEnum.EXHAUSTED));
+    }
+
+    /**
+     * Republishes the state of every coupon so that the compacted topic also covers coupons created before it
+     * existed or outside the Kafka pipeline. Re-publishing is idempotent.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedStateTopic() {
+        if (!seedOnStartup) {
+            return;
+        }
+        long published = 0;
+        String after = "";
+        List<Coupon> coupons;
+        do {
+            coupons = couponRepository.findCouponsAfter(after, PageRequest.of(0, seedPageSize));
+            for (Coupon coupon : coupons) {
+                CouponSnapshot snapshot = CouponSnapshot.of(coupon);
+                kafkaTemplate.send(couponStateTopic, snapshot.code(),
+                        toEvent(snapshot, snapshot.exhausted() ? CouponStateEnum.EXHAUSTED : CouponStateEnum.ACTIVE));
+            }
+            published += coupons.size();
+            if (!coupons.isEmpty()) {
+                after = coupons.getLast().getCode();
+            }
+        } while (coupons.size() == seedPageSize);
+        logger.info("Seeded coupon state topic - Coupons: {}", published);
+    }
+
+    /**
+     * Publishes coupons created since the previous pass, re-reading an overlap window for commit delay and clock
+     * skew, so rows inserted outside the pipeline reach coupon-api without a restart. Striped coupons are skipped:
+     * their {@code current_uses} lags the stripes, and only a coupon already on the topic can have been striped.
+     * A row inserted with a {@code created_at} older than the overlap is still only picked up by the next seed.
+     */
+    @Scheduled(initialDelayString = "${coupon.state.catch-up-interval-ms:30000}",
+            fixedDelayString = "${coupon.state.catch-up-interval-ms:30000}")
+    public void publishRecentStates() {
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = caughtUpFrom.minusNanos(catchUpOverlapMs * 1_000_000);
+        try {
+            long published = 0;
+            String after = "";
+            List<Coupon> coupons;
+            do {
+                coupons = couponRepository.findUnstripedCouponsCreatedSince(since, after, PageRequest.of(0, seedPageSize));
+                for (Coupon coupon : coupons) {
+                    CouponSnapshot snapshot = CouponSnapshot.of(coupon);
+                    publish(toEvent(snapshot, snapshot.exhausted() ? CouponStateEnum.EXHAUSTED : CouponStateEnum.ACTIVE));
+                }
+                published += coupons.size();
+                if (!coupons.isEmpty()) {
+                    after = coupons.getLast().getCode();
+                }
+            } while (coupons.size() == seedPageSize);
+            caughtUpFrom = started;
+            logger.debug("Published recent coupon states - Coupons: {}, Since: {}", published, since);
+        } catch (Exception e) {
+            logger.error("Failed to publish recent coupon states", e);
+        }
+    }
+
+    /**
+     * Manually assigned, so every replica sees every partition and no per-instance consumer group is left behind
+     * on the broker. Offsets committed under {@code coupon-service-catalog} are never read back.
+     */
+    @KafkaListener(groupId = "coupon-service-catalog",
+            topicPartitions = @TopicPartition(topic = "${kafka.topics.coupon-state:coupon-state}",
+                    partitions = "0-#{${kafka.topics.coupon-state-partitions:3} - 1}"),
+            properties = "enable.auto.commit=false")
+    public void consumeCouponStateEvent(CouponStateEvent event) {
+        logger.debug("Received coupon state - Code: {}, State: {}", event.getCode(), event.getState());
+        apply(event);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<org.apache.kafka.common.TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+    }
+
+    private void publish(CouponStateEvent event) {
+        apply(event);
+        kafkaTemplate.send(couponStateTopic, event.getCode(), event);
+    }
+
+    /**
+     * Overwrites only codes this instance has already looked up, so replaying the compacted topic does not
+     * fill the cache with cold coupons.
+     */
+    private void apply(CouponStateEvent event) {
+        couponCodeFilter.add(event.getCode());
+        Optional<CouponSnapshot> snapshot = Optional.of(new CouponSnapshot(event.getCouponId(), event.getCode(),
+                event.getCountryCode(), event.getMaxUses(), event.getState() == CouponStateEnum.EXHAUSTED));
+        catalog.asMap().computeIfPresent(event.getCode().toUpperCase(), (code, cached) -> snapshot);
+    }
+
+    private static CouponStateEvent toEvent(CouponSnapshot snapshot, CouponStateEnum state) {
+        CouponStateEvent event = new CouponStateEvent();
+        event.setCouponId(snapshot.id());
+        event.setCode(snapshot.code());
+        event.setCountryCode(snapshot.countryCode());
+        event.setMaxUses(snapshot.maxUses());
+        event.setState(state);
+        return event;
+    }
+
+    public record CouponSnapshot(UUID id, String code, String countryCode, int maxUses, boolean exhausted) {
+
+        static CouponSnapshot of(Coupon coupon) {
+            return new CouponSnapshot(coupon.getId(), coupon.getCode(), coupon.getCountryCode(), coupon.getMaxUses(),
+                    coupon.getCurrentUses() != null && coupon.getCurrentUses() >= coupon.getMaxUses());
+        }
+
+        CouponSnapshot withExhausted() {
+            return new CouponSnapshot(id, code, countryCode, maxUses, true);
+        }
+    }
+
+    private record SnapshotExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, Optional<CouponSnapshot>> {
+
+        @Override
+        public long expireAfterCreate(String code, Optional<CouponSnapshot> snapshot, long currentTime) {
+            return (snapshot.isPresent() ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String code, Optional<CouponSnapshot> snapshot, long currentTime, long currentDuration) {
+            return expireAfterCreate(code, snapshot, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String code, Optional<CouponSnapshot> snapshot, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.couponservice.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bloom filter of upper-cased coupon codes. A definite miss lets the use path answer {@code NOT_EXISTS} and the
+ * create path skip its existence query. Until the first build completes every code is reported as possibly present.
+ * <p>
+ * The filter is rebuilt from the {@code coupons} table on a schedule so it can be resized as the table grows.
+ * Codes added during a rebuild go into both the current and the new filter. Between rebuilds the filter is topped
+ * up with codes created since the previous pass, so rows committed by other replicas or inserted outside the
+ * pipeline are reported as absent for at most one refresh interval plus the overlap.
+ */
+@Service
+public class CouponCodeFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponCodeFilter.class);
+
+    private final CouponRepository couponRepository;
+    private final MeterRegistry meterRegistry;
+    private final Counter falsePositives;
+    private final Counter rejections;
+
+    @Value("${coupon.bloom.enabled:true}")
+    private boolean enabled;
+
+    @Value("${coupon.bloom.fpp:0.01}")
+    private double fpp;
+
+    @Value("${coupon.bloom.min-capacity:100000}")
+    private long minCapacity;
+
+    @Value("${coupon.bloom.page-size:10000}")
+    private int pageSize;
+
+    @Value("${coupon.bloom.refresh-overlap-ms:60000}")
+    private long refreshOverlapMs;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+    private volatile LocalDateTime refreshedFrom;
+
+    @Autowired
+    public CouponCodeFilter(CouponRepository couponRepository, MeterRegistry meterRegistry) {
+        this.couponRepository = couponRepository;
+        this.meterRegistry = meterRegistry;
+        this.falsePositives = Counter.builder("coupon.bloom.false.positives")
+                .description("Codes the filter reported as possibly present that do not exist")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("coupon.bloom.rejections")
+                .description("Codes rejected by the filter without a database lookup")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("coupon.bloom.expected.fpp", this, filter -> filter.current == null ? 0 : filter.current.expectedFpp())
+                .register(meterRegistry);
+        Gauge.builder("coupon.bloom.memory", this, filter -> filter.current == null ? 0 : filter.current.memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("coupon.bloom.size", this, filter -> filter.current == null ? 0 : filter.current.approximateElementCount())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${coupon.bloom.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${coupon.bloom.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDateTime started = LocalDateTime.now();
+            long count = couponRepository.count();
+            BloomFilter filter = BloomFilter.create(Math.max(minCapacity, count * 2), fpp);
+            building = filter;
+
+            String after = "";
+            List<String> codes;
+            do {
+                codes = couponRepository.findCodesAfter(after, PageRequest.of(0, pageSize));
+                codes.forEach(filter::put);
+                if (!codes.isEmpty()) {
+                    after = codes.getLast();
+                }
+            } while (codes.size() == pageSize);
+
+            current = filter;
+            refreshedFrom = started;
+            logger.info("Rebuilt coupon code filter - Codes: {}, Bits: {}, Hashes: {}",
+                    count, filter.bitSize(), filter.hashFunctions());
+        } catch (Exception e) {
+            logger.error("Failed to rebuild coupon code filter", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${coupon.bloom.refresh-interval-ms:10000}",
+            fixedDelayString = "${coupon.bloom.refresh-interval-ms:10000}")
+    public void refresh() {
+        LocalDateTime from = refreshedFrom;
+        if (!enabled || current == null || from == null || building != null) {
+            return;
+        }
+        try {
+            LocalDateTime started = LocalDateTime.now();
+            // created_at is stamped before commit and by other clocks, so each pass re-reads an overlap window
+            LocalDateTime since = from.minusNanos(refreshOverlapMs * 1_000_000);
+            String after = "";
+            int added = 0;
+            List<String> codes;
+            do {
+                codes = couponRepository.findCodesCreatedSince(since, after, PageRequest.of(0, pageSize));
+                codes.forEach(this::add);
+                added += codes.size();
+                if (!codes.isEmpty()) {
+                    after = codes.getLast();
+                }
+            } while (codes.size() == pageSize);
+            refreshedFrom = started;
+            logger.debug("Refreshed coupon code filter - Codes: {}, Since: {}", added, since);
+        } catch (Exception e) {
+            logger.error("Failed to refresh coupon code filter", e);
+        }
+    }
+
+    public void add(String code) {
+        String normalized = code.toUpperCase();
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(normalized);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(normalized);
+        }
+    }
+
+    public boolean mightContain(String code) {
+        BloomFilter filter = current;
+        if (filter == null || filter.mightContain(code.toUpperCase())) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    public void recordFalsePositive() {
+        if (current != null) {
+            falsePositives.increment();
+        }
+    }
+}
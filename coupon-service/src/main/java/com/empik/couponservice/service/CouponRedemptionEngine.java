@@ -0,0 +1,15 @@
+package com.empik.couponservice.service;
+
+import com.empik.shared.enums.CouponUseStatusEnum;
+
+import java.util.UUID;
+
+/**
+ * Transactional part of the use pipeline, selected with {@code coupon.redemption.engine}.
+ * A duplicate redemption may surface as a {@link org.springframework.dao.DataIntegrityViolationException}
+ * from the {@code uk_user_coupon} constraint, which callers report as {@code ALREADY_USED}.
+ */
+public interface CouponRedemptionEngine {
+
+    CouponUseStatusEnum redeem(UUID couponId, String userId, String countryCode);
+}
@@ -0,0 +1,83 @@
+package com.empik.couponservice.service;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import com.empik.shared.event.CouponBulkCreateResponseEvent;
+import com.empik.shared.event.CouponCreateResponseEvent;
+import com.empik.shared.event.CouponUseResponseEvent;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+public class CouponResponsePublisher {
+
+    private final KafkaTemplate<String, CouponCreateResponseEvent> couponCreateResponseEventKafkaTemplate;
+    private final KafkaTemplate<String, CouponUseResponseEvent> couponUseResponseEventKafkaTemplate;
+    private final KafkaTemplate<String, CouponBulkCreateResponseEvent> couponBulkCreateResponseEventKafkaTemplate;
+    @Value("${kafka.topics.coupon-create-response}")
+    private String couponCreateResponseTopic;
+    @Value("${kafka.topics.coupon-use-response}")
+    private String couponUseResponseTopic;
+    @Value("${kafka.topics.coupon-bulk-create-response:coupon-bulk-create-response}")
+    private String couponBulkCreateResponseTopic;
+
+    @Autowired
+    public CouponResponsePublisher(KafkaTemplate<String, CouponCreateResponseEvent> couponCreateResponseEventKafkaTemplate,
+                                   KafkaTemplate<String, CouponUseResponseEvent> couponUseResponseEventKafkaTemplate,
+                                   KafkaTemplate<String, CouponBulkCreateResponseEvent> couponBulkCreateResponseEventKafkaTemplate) {
+        this.couponCreateResponseEventKafkaTemplate = couponCreateResponseEventKafkaTemplate;
+        this.couponUseResponseEventKafkaTemplate = couponUseResponseEventKafkaTemplate;
+        this.couponBulkCreateResponseEventKafkaTemplate = couponBulkCreateResponseEventKafkaTemplate;
+    }
+
+    public void sendCouponCreateResponse(UUID requestId, CouponCreateStatusEnum status, Integer replyPartition) {
+        CouponCreateResponseEvent event = new CouponCreateResponseEvent();
+        event.setRequestId(requestId);
+        event.setStatus(status);
+
+        couponCreateResponseEventKafkaTemplate.send(couponCreateResponseTopic, replyPartition, requestId.toString(), event);
+    }
+
+    public void sendCouponUseResponse(UUID requestId, CouponUseStatusEnum status, Integer replyPartition) {
+        CouponUseResponseEvent event = new CouponUseResponseEvent();
+        event.setRequestId(requestId);
+        event.setStatus(status);
+
+        couponUseResponseEventKafkaTemplate.send(couponUseResponseTopic, replyPartition, requestId.toString(), event);
+    }
+
+    public void sendCouponBulkCreateResponse(UUID jobId, int firstRow, List<CouponCreateStatusEnum> statuses) {
+        CouponBulkCreateResponseEvent event = new CouponBulkCreateResponseEvent();
+        event.setJobId(jobId);
+        event.setFirstRow(firstRow);
+        event.setStatuses(statuses);
+
+        couponBulkCreateResponseEventKafkaTemplate.send(couponBulkCreateResponseTopic, jobId.toString(), event);
+    }
+
+    public void flush() {
+        couponCreateResponseEventKafkaTemplate.flush();
+        couponUseResponseEventKafkaTemplate.flush();
+    }
+
+    public static Integer toPartition(byte[] replyPartitionHeader) {
+        if (replyPartitionHeader == null || replyPartitionHeader.length != Integer.BYTES) {
+            return null;
+        }
+        return ByteBuffer.wrap(replyPartitionHeader).getInt();
+    }
+
+    public static Integer toPartition(Headers headers) {
+        Header header = headers.lastHeader(KafkaHeaders.REPLY_PARTITION);
+        return header == null ? null : toPartition(header.value());
+    }
+}
@@ -1,22 +1,18 @@
 package com.empik.couponservice.service;
 
 import com.empik.couponservice.domain.Coupon;
-import com.empik.couponservice.domain.CouponUsage;
 import com.empik.couponservice.repository.CouponRepository;
 import com.empik.couponservice.repository.CouponUsageRepository;
+import com.empik.couponservice.service.CouponCatalogService.CouponSnapshot;
 import com.empik.shared.enums.CouponCreateStatusEnum;
 import com.empik.shared.enums.CouponUseStatusEnum;
 import com.empik.shared.event.CouponCreateRequestEvent;
-import com.empik.shared.event.CouponCreateResponseEvent;
 import com.empik.shared.event.CouponUseRequestEvent;
-import com.empik.shared.event.CouponUseResponseEvent;
-import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
@@ -32,38 +28,59 @@ public class CouponService {
     private final CouponRepository couponRepository;
     private final CouponUsageRepository couponUsageRepository;
     private final IpInfoService ipInfoService;
-    private final KafkaTemplate<String, CouponCreateResponseEvent> couponCreateResponseEventKafkaTemplate;
-    private final KafkaTemplate<String, CouponUseResponseEvent> couponUseResponseEventKafkaTemplate;
-    @Value("${kafka.topics.coupon-create-response}")
-    private String couponCreateResponseTopic;
-    @Value("${kafka.topics.coupon-use-response}")
-    private String couponUseResponseTopic;
+    private final CouponRedemptionEngine couponRedemptionEngine;
+    private final StripedCouponRedemptionEngine stripedCouponRedemptionEngine;
+    private final CouponResponsePublisher couponResponsePublisher;
+    private final CouponCatalogService couponCatalogService;
+    private final CouponCodeFilter couponCodeFilter;
+    private final RedeemedUserIndex redeemedUserIndex;
+    private final CouponUsageStatsService couponUsageStatsService;
 
     @Autowired
     public CouponService(CouponRepository couponRepository,
                          CouponUsageRepository couponUsageRepository,
                          IpInfoService ipInfoService,
-                         KafkaTemplate<String, CouponCreateResponseEvent> couponCreateResponseEventKafkaTemplate,
-                         KafkaTemplate<String, CouponUseResponseEvent> couponUseResponseEventKafkaTemplate
+                         CouponRedemptionEngine couponRedemptionEngine,
+                         StripedCouponRedemptionEngine stripedCouponRedemptionEngine,
+                         CouponResponsePublisher couponResponsePublisher,
+                         CouponCatalogService couponCatalogService,
+                         CouponCodeFilter couponCodeFilter,
+                         RedeemedUserIndex redeemedUserIndex,
+                         CouponUsageStatsService couponUsageStatsService
     ) {
         this.couponRepository = couponRepository;
         this.couponUsageRepository = couponUsageRepository;
         this.ipInfoService = ipInfoService;
-        this.couponCreateResponseEventKafkaTemplate = couponCreateResponseEventKafkaTemplate;
-        this.couponUseResponseEventKafkaTemplate = couponUseResponseEventKafkaTemplate;
+        this.couponRedemptionEngine = couponRedemptionEngine;
+        this.stripedCouponRedemptionEngine = stripedCouponRedemptionEngine;
+        this.couponResponsePublisher = couponResponsePublisher;
+        this.couponCatalogService = couponCatalogService;
+        this.couponCodeFilter = couponCodeFilter;
+        this.redeemedUserIndex = redeemedUserIndex;
+        this.couponUsageStatsService = couponUsageStatsService;
     }
 
-    @KafkaListener(topics = "coupon-create-request", groupId = "coupon-service-group")
-    @Transactional
+    @KafkaListener(topics = "coupon-create-request", groupId = "coupon-service-group",
+            autoStartup = "#{!${kafka.batch.enabled:false}}")
     public void consumeCouponCreateRequestEvent(@Header(value = KafkaHeaders.KEY, required = false) String code,
+                                                @Header(value = KafkaHeaders.REPLY_PARTITION, required = false) byte[] replyPartitionHeader,
                                                 CouponCreateRequestEvent event) {
+        createCoupon(event, CouponResponsePublisher.toPartition(replyPartitionHeader));
+    }
+
+    /**
+     * Runs without a surrounding transaction: when the code filter reports a definite miss the existence query
+     * is skipped and a concurrent duplicate is caught by {@code uk_code} on insert.
+     */
+    public void createCoupon(CouponCreateRequestEvent event, Integer replyPartition) {
         logger.info("Received coupon create request - RequestId: {}, Code: {}", event.getRequestId(), event.getCode());
 
-        boolean couponExists = couponRepository.existsByCodeIgnoreCase(event.getCode());
+        boolean couponExists = couponCodeFilter.mightContain(event.getCode())
+                && couponRepository.existsByCodeIgnoreCase(event.getCode());
 
         if (couponExists) {
             logger.warn("Coupon with code {} already exists - RequestId: {}", event.getCode(), event.getRequestId());
-            sendCouponCreateResponse(event.getRequestId(), CouponCreateStatusEnum.ALREADY_EXISTS);
+            sendCouponCreateResponse(event.getRequestId(), CouponCreateStatusEnum.ALREADY_EXISTS, replyPartition);
             return;
         }
 
@@ -72,46 +89,67 @@ public class CouponService {
             coupon.setCode(event.getCode());
             coupon.setCountryCode(event.getCountryCode());
             coupon.setMaxUses(event.getMaxUsage());
-            couponRepository.save(coupon);
+            couponRepository.saveAndFlush(coupon);
+            couponCatalogService.couponCreated(coupon);
 
             logger.info("Successfully created coupon - RequestId: {}, Code: {}, CountryCode: {}",
                     event.getRequestId(), event.getCode(), event.getCountryCode());
-            sendCouponCreateResponse(event.getRequestId(), CouponCreateStatusEnum.CREATED);
+            sendCouponCreateResponse(event.getRequestId(), CouponCreateStatusEnum.CREATED, replyPartition);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Coupon with code {} already exists - RequestId: {}", event.getCode(), event.getRequestId());
+            sendCouponCreateResponse(event.getRequestId(), CouponCreateStatusEnum.ALREADY_EXISTS, replyPartition);
         } catch (Exception e) {
             logger.error("Error creating coupon - RequestId: {}, Code: {}", event.getRequestId(), event.getCode(), e);
-            sendCouponCreateResponse(event.getRequestId(), CouponCreateStatusEnum.FAILED);
+            sendCouponCreateResponse(event.getRequestId(), CouponCreateStatusEnum.FAILED, replyPartition);
         }
     }
 
-    @KafkaListener(topics = "coupon-use-request", groupId = "coupon-service-group")
-    @Transactional
-    public void consumeCouponUseRequestEvent(@Header(value = KafkaHeaders.KEY, required = false) String code,
+    @KafkaListener(topics = "coupon-use-request", groupId = "coupon-service-group",
+            autoStartup = "#{!${kafka.batch.enabled:false}}")
+    public void consumeCouponUseRequestEvent(@Header(value = KafkaHeaders.REPLY_PARTITION, required = false) byte[] replyPartitionHeader,
+                                             @Header(value = CouponUseRequestEvent.STRIPE_HEADER, required = false) byte[] stripeHeader,
                                              CouponUseRequestEvent event) {
+        useCoupon(event, CouponResponsePublisher.toPartition(replyPartitionHeader), stripedCouponRedemptionEngine.stripeOf(stripeHeader));
+    }
 
+    /**
+     * A requested stripe redeems through {@link StripedCouponRedemptionEngine}; without one the configured engine
+     * is used, which itself defers to the stripes once the coupon is striped.
+     */
+    public void useCoupon(CouponUseRequestEvent event, Integer replyPartition, Integer stripe) {
         logger.info("Received coupon use request - RequestId: {}, Code: {}, UserId: {}",
                 event.getRequestId(), event.getCode(), event.getUserId());
 
-        Optional<Coupon> couponOptional = couponRepository.findByCodeIgnoreCase(event.getCode());
+        if (!couponCodeFilter.mightContain(event.getCode())) {
+            logger.warn("Coupon not found - RequestId: {}, Code: {}", event.getRequestId(), event.getCode());
+            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.NOT_EXISTS, replyPartition);
+            return;
+        }
+
+        Optional<CouponSnapshot> couponOptional = couponCatalogService.findByCode(event.getCode());
 
         if (couponOptional.isEmpty()) {
+            couponCodeFilter.recordFalsePositive();
             logger.warn("Coupon not found - RequestId: {}, Code: {}", event.getRequestId(), event.getCode());
-            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.NOT_EXISTS);
+            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.NOT_EXISTS, replyPartition);
             return;
         }
 
-        Coupon coupon = couponOptional.get();
+        CouponSnapshot coupon = couponOptional.get();
 
-        if (coupon.getCurrentUses() >= coupon.getMaxUses()) {
+        if (coupon.exhausted()) {
             logger.warn("Coupon usage limit reached - RequestId: {}, Code: {}", event.getRequestId(), event.getCode());
-            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.LIMIT_REACHED);
+            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.LIMIT_REACHED, replyPartition);
             return;
         }
 
-        boolean couponUsed = couponUsageRepository.existsByCouponAndUserId(coupon, event.getUserId());
-        if (couponUsed) {
+        // The index answers repeat users from memory; a miss still checks coupon_usages before the country lookup
+        if (redeemedUserIndex.isRedeemed(coupon.id(), event.getUserId())
+                || couponUsageRepository.existsByCouponIdAndUserId(coupon.id(), event.getUserId())) {
             logger.warn("Coupon already used by user - RequestId: {}, Code: {}, UserId: {}",
                     event.getRequestId(), event.getCode(), event.getUserId());
-            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.ALREADY_USED);
+            redeemedUserIndex.markRedeemed(coupon.id(), event.getUserId());
+            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.ALREADY_USED, replyPartition);
             return;
         }
 
@@ -119,51 +157,51 @@ public class CouponService {
         if (countryCode == null) {
             logger.error("Could not determine country code - RequestId: {}, IP: {}",
                     event.getRequestId(), event.getIpAddress());
-            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.COUNTRY_ERROR);
+            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.COUNTRY_ERROR, replyPartition);
             return;
         }
 
-        if (!countryCode.equalsIgnoreCase(coupon.getCountryCode())) {
+        if (!countryCode.equalsIgnoreCase(coupon.countryCode())) {
             logger.warn("Country not supported - RequestId: {}, Expected: {}, Actual: {}",
-                    event.getRequestId(), coupon.getCountryCode(), countryCode);
-            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.COUNTRY_NOT_SUPPORTED);
+                    event.getRequestId(), coupon.countryCode(), countryCode);
+            sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.COUNTRY_NOT_SUPPORTED, replyPartition);
             return;
         }
 
-    try {
-        CouponUsage couponUsage = new CouponUsage();
-        couponUsage.setCoupon(coupon);
-        couponUsage.setUserId(event.getUserId());
-        couponUsage.setUserCountryCode(countryCode);
-        couponUsageRepository.save(couponUsage);
-
-        coupon.setCurrentUses(coupon.getCurrentUses() + 1);
-        couponRepository.save(coupon);
-
-        logger.info("Successfully used coupon - RequestId: {}, Code: {}, UserId: {}, CountryCode: {}",
-                event.getRequestId(), event.getCode(), event.getUserId(), countryCode);
-        sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.SUCCESS);
-    } catch (Exception e) {
-        logger.error("Error processing coupon use - RequestId: {}, Code: {}",
-                event.getRequestId(), event.getCode(), e);
-        sendCouponUseResponse(event.getRequestId(), CouponUseStatusEnum.FAILED);
-    }
+        CouponUseStatusEnum status;
+        try {
+            status = stripe != null
+                    ? stripedCouponRedemptionEngine.redeem(coupon.id(), stripe, event.getUserId(), countryCode)
+                    : couponRedemptionEngine.redeem(coupon.id(), event.getUserId(), countryCode);
+        } catch (DataIntegrityViolationException e) {
+            status = CouponUseStatusEnum.ALREADY_USED;
+        } catch (Exception e) {
+            logger.error("Error processing coupon use - RequestId: {}, Code: {}",
+                    event.getRequestId(), event.getCode(), e);
+            status = CouponUseStatusEnum.FAILED;
+        }
 
+        if (status == CouponUseStatusEnum.SUCCESS) {
+            logger.info("Successfully used coupon - RequestId: {}, Code: {}, UserId: {}, CountryCode: {}",
+                    event.getRequestId(), event.getCode(), event.getUserId(), countryCode);
+            redeemedUserIndex.markRedeemed(coupon.id(), event.getUserId());
+            couponUsageStatsService.couponRedeemed(coupon, event.getUserId(), countryCode);
+        } else if (status == CouponUseStatusEnum.ALREADY_USED) {
+            logger.warn("Coupon already used by user - RequestId: {}, Code: {}, UserId: {}",
+                    event.getRequestId(), event.getCode(), event.getUserId());
+            redeemedUserIndex.markRedeemed(coupon.id(), event.getUserId());
+        } else if (status == CouponUseStatusEnum.LIMIT_REACHED) {
+            logger.warn("Coupon usage limit reached - RequestId: {}, Code: {}", event.getRequestId(), event.getCode());
+            couponCatalogService.couponExhausted(coupon);
+        }
+        sendCouponUseResponse(event.getRequestId(), status, replyPartition);
     }
 
-    private void sendCouponCreateResponse(UUID requestId, CouponCreateStatusEnum status) {
-        CouponCreateResponseEvent event = new CouponCreateResponseEvent();
-        event.setRequestId(requestId);
-        event.setStatus(status);
-
-        couponCreateResponseEventKafkaTemplate.send(couponCreateResponseTopic, requestId.toString(), event);
+    private void sendCouponCreateResponse(UUID requestId, CouponCreateStatusEnum status, Integer replyPartition) {
+        couponResponsePublisher.sendCouponCreateResponse(requestId, status, replyPartition);
     }
 
-    private void sendCouponUseResponse(UUID requestId, CouponUseStatusEnum status) {
-        CouponUseResponseEvent event = new CouponUseResponseEvent();
-        event.setRequestId(requestId);
-        event.setStatus(status);
-
-        couponUseResponseEventKafkaTemplate.send(couponUseResponseTopic, event);
+    private void sendCouponUseResponse(UUID requestId, CouponUseStatusEnum status, Integer replyPartition) {
+        couponResponsePublisher.sendCouponUseResponse(requestId, status, replyPartition);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+package com.empik.couponservice.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Streams {@code coupon_usages} joined with {@code coupons} straight from a server-side cursor to the response.
+ * Rows are fetched {@code coupon.export.fetch-size} at a time and written as they arrive, so heap use does not
+ * depend on the size of the export. The cursor needs a transaction: outside one the PostgreSQL driver reads
+ * the whole result set before returning.
+ * <p>
+ * Rows are ordered by {@code (used_at, id)}. Every row carries a cursor token for that position, and passing
+ * it back as {@code cursor} resumes the export right after that row.
+ */
+@Service
+public class CouponUsageExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponUsageExportService.class);
+
+    private static final String EXPORT_SQL = "SELECT u.id, u.used_at, u.user_id, u.user_country_code, "
+            + "c.id AS coupon_id, c.code, c.country_code "
+            + "FROM coupon_usages u JOIN coupons c ON c.id = u.coupon_id "
+            + "WHERE u.used_at >= ? AND u.used_at < ? AND (u.used_at, u.id) > (?, ?) "
+            + "ORDER BY u.used_at, u.id";
+
+    private static final String CSV_HEADER = "usage_id,used_at,user_id,user_country_code,coupon_id,code,country_code,cursor\n";
+
+    private static final UUID MIN_UUID = new UUID(0, 0);
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private final JdbcTemplate exportJdbcTemplate;
+
+    @Autowired
+    public CouponUsageExportService(DataSource dataSource,
+                                    @Value("${coupon.export.fetch-size:1000}") int fetchSize) {
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Writes usages in {@code [from, to)} after the position of {@code cursor}, if given.
+     *
+     * @throws IllegalArgumentException if the cursor token is malformed
+     */
+    @Transactional
+    public long export(LocalDateTime from, LocalDateTime to, String cursor, Format format, OutputStream out) throws IOException {
+        LocalDateTime afterUsedAt = from;
+        UUID afterId = MIN_UUID;
+        if (cursor != null) {
+            String[] position = decodeCursor(cursor);
+            afterUsedAt = LocalDateTime.parse(position[0]);
+            afterId = UUID.fromString(position[1]);
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        long[] rows = {0};
+        try {
+            exportJdbcTemplate.query(EXPORT_SQL, (ResultSet rs) -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }, from, to, afterUsedAt, afterId);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rowWriter.finish();
+        writer.flush();
+
+        logger.info("Exported coupon usages - From: {}, To: {}, Rows: {}", from, to, rows[0]);
+        return rows[0];
+    }
+
+    private static String encodeCursor(LocalDateTime usedAt, UUID id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((usedAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Malformed export cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            UUID.fromString(position[1]);
+            return position;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed export cursor", e);
+        }
+    }
+
+    private interface RowWriter {
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        default void finish() throws IOException {
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            UUID id = rs.getObject("id", UUID.class);
+            LocalDateTime usedAt = rs.getObject("used_at", LocalDateTime.class);
+            writer.write(id.toString());
+            writer.write(',');
+            writer.write(usedAt.toString());
+            writer.write(',');
+            writeField(rs.getString("user_id"));
+            writer.write(',');
+            writeField(rs.getString("user_country_code"));
+            writer.write(',');
+            writer.write(rs.getObject("coupon_id", UUID.class).toString());
+            writer.write(',');
+            writeField(rs.getString("code"));
+            writer.write(',');
+            writeField(rs.getString("country_code"));
+            writer.write(',');
+            writer.write(encodeCursor(usedAt, id));
+            writer.write('\n');
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = new JsonFactory().createGenerator(writer);
+            this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            UUID id = rs.getObject("id", UUID.class);
+            LocalDateTime usedAt = rs.getObject("used_at", LocalDateTime.class);
+            generator.writeStartObject();
+            generator.writeStringField("usageId", id.toString());
+            generator.writeStringField("usedAt", usedAt.toString());
+            generator.writeStringField("userId", rs.getString("user_id"));
+            generator.writeStringField("userCountryCode", rs.getString("user_country_code"));
+            generator.writeStringField("couponId", rs.getObject("coupon_id", UUID.class).toString());
+            generator.writeStringField("code", rs.getString("code"));
+            generator.writeStringField("countryCode", rs.getString("country_code"));
+            generator.writeStringField("cursor", encodeCursor(usedAt, id));
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.dto.CouponUsageStatsDto;
+import com.empik.couponservice.repository.CouponUsageStatsRepository;
+import com.empik.couponservice.service.CouponCatalogService.CouponSnapshot;
+import com.empik.shared.event.CouponRedeemedEvent;
+import jakarta.transaction.Transactional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Redemption analytics read model. Successful redemptions are announced on {@code kafka.topics.coupon-redeemed}
+ * and folded into hourly {@code coupon_usage_stats} counters per coupon and country, so usage queries read
+ * O(buckets) rows instead of counting {@code coupon_usages}.
+ * <p>
+ * Each poll is pre-aggregated in memory and applied with one batch of upserts. Delivery is at-least-once: a poll
+ * redelivered after a crash between the upsert commit and the offset commit is counted twice.
+ */
+@Service
+public class CouponUsageStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponUsageStatsService.class);
+
+    private static final String UPSERT_SQL = "INSERT INTO coupon_usage_stats (id, coupon_id, country_code, bucket_start, uses) "
+            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (coupon_id, bucket_start, country_code) "
+            + "DO UPDATE SET uses = coupon_usage_stats.uses + EXCLUDED.uses";
+
+    private static final Comparator<Bucket> BUCKET_ORDER = Comparator.comparing(Bucket::couponId)
+            .thenComparing(Bucket::start)
+            .thenComparing(Bucket::countryCode);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final CouponUsageStatsRepository couponUsageStatsRepository;
+
+    @Value("${kafka.topics.coupon-redeemed:coupon-redeemed}")
+    private String couponRedeemedTopic;
+
+    @Autowired
+    public CouponUsageStatsService(KafkaTemplate<String, Object> kafkaTemplate,
+                                   JdbcTemplate jdbcTemplate,
+                                   CouponUsageStatsRepository couponUsageStatsRepository) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.couponUsageStatsRepository = couponUsageStatsRepository;
+    }
+
+    /**
+     * Must be called only once the redemption has been committed.
+     */
+    public void couponRedeemed(CouponSnapshot coupon, String userId, String countryCode) {
+        CouponRedeemedEvent event = new CouponRedeemedEvent();
+        event.setCouponId(coupon.id());
+        event.setCode(coupon.code());
+        event.setCountryCode(countryCode.toUpperCase());
+        event.setUserId(userId);
+        event.setUsedAt(System.currentTimeMillis());
+        kafkaTemplate.send(couponRedeemedTopic, coupon.id().toString(), event);
+    }
+
+    @KafkaListener(topics = "${kafka.topics.coupon-redeemed:coupon-redeemed}", groupId = "coupon-usage-stats",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    @Transactional
+    public void consumeCouponRedeemedEvents(List<ConsumerRecord<String, CouponRedeemedEvent>> records) {
+        // Sorted so that concurrent consumers always lock rows in the same order
+        Map<Bucket, Long> increments = new TreeMap<>(BUCKET_ORDER);
+        for (ConsumerRecord<String, CouponRedeemedEvent> record : records) {
+            CouponRedeemedEvent event = record.value();
+            LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochMilli(event.getUsedAt()), ZoneOffset.UTC)
+                    .truncatedTo(ChronoUnit.HOURS);
+            increments.merge(new Bucket(event.getCouponId(), start, event.getCountryCode()), 1L, Long::sum);
+        }
+
+        List<Object[]> args = new ArrayList<>(increments.size());
+        increments.forEach((bucket, uses) ->
+                args.add(new Object[]{UUID.randomUUID(), bucket.couponId(), bucket.countryCode(), bucket.start(), uses}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+
+        logger.debug("Applied coupon usage stats - Events: {}, Buckets: {}", records.size(), increments.size());
+    }
+
+    /**
+     * Returns usage in {@code [from, to)} (UTC) in hourly or daily buckets, optionally for a single country.
+     */
+    public List<CouponUsageStatsDto> findUsage(UUID couponId, LocalDateTime from, LocalDateTime to,
+                                               ChronoUnit granularity, String countryCode) {
+        Map<Bucket, Long> usage = new LinkedHashMap<>();
+        couponUsageStatsRepository.findBuckets(couponId, from.truncatedTo(ChronoUnit.HOURS), to).stream()
+                .filter(stats -> countryCode == null || countryCode.equalsIgnoreCase(stats.getCountryCode()))
+                .forEach(stats -> usage.merge(
+                        new Bucket(couponId, stats.getBucketStart().truncatedTo(granularity), stats.getCountryCode()),
+                        stats.getUses(), Long::sum));
+
+        return usage.entrySet().stream()
+                .map(entry -> new CouponUsageStatsDto(entry.getKey().start(), entry.getKey().countryCode(), entry.getValue()))
+                .toList();
+    }
+
+    private record Bucket(UUID couponId, LocalDateTime start, String countryCode) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.util.IpRangeTable;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Offline IP to country resolution from a local range dataset. A new version of the file
+ * is loaded in the background and swapped in atomically, so lookups never pause.
+ */
+@Service
+public class GeoIpDatabaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoIpDatabaseService.class);
+
+    @Value("${ip-geo.database-path:}")
+    private String databasePath;
+
+    private volatile IpRangeTable table = IpRangeTable.empty();
+    private volatile FileTime loadedVersion;
+
+    @PostConstruct
+    public void init() {
+        reloadIfChanged();
+    }
+
+    public boolean isEnabled() {
+        return !databasePath.isBlank();
+    }
+
+    public String getCountryCodeByIp(String ip) {
+        return table.lookup(ip);
+    }
+
+    @Scheduled(fixedDelayString = "${ip-geo.reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Path path = Path.of(databasePath);
+        try {
+            FileTime version = Files.getLastModifiedTime(path);
+            if (version.equals(loadedVersion)) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            IpRangeTable newTable;
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                newTable = IpRangeTable.parse(reader);
+            }
+            table = newTable;
+            loadedVersion = version;
+            logger.info("Loaded IP geolocation database - Path: {}, Ranges: {}, TookMs: {}",
+                    path, newTable.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            logger.error("Failed to load IP geolocation database, keeping current version - Path: {}", path, e);
+        }
+    }
+}
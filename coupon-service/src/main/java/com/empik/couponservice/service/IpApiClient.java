@@ -0,0 +1,205 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.dto.IpInfoDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * ip-api client sharing one pooled, timeout-bounded HTTP client. In batching mode single
+ * lookups from concurrent listener threads are grouped into one {@code /batch} request.
+ */
+@Service
+public class IpApiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(IpApiClient.class);
+
+    private static final String FIELDS = "status,countryCode,query";
+
+    private final RestTemplate ipApiRestTemplate;
+    private final BlockingQueue<PendingLookup> pendingLookups = new LinkedBlockingQueue<>();
+
+    @Value("${ip-api.scheme}")
+    private String ipApiScheme;
+
+    @Value("${ip-api.host}")
+    private String ipApiHost;
+
+    @Value("${ip-api.port:-1}")
+    private int ipApiPort;
+
+    @Value("${ip-api.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${ip-api.batch.max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${ip-api.batch.max-delay:5ms}")
+    private Duration batchMaxDelay;
+
+    @Value("${ip-api.lookup-timeout:2s}")
+    private Duration lookupTimeout;
+
+    private Thread batchThread;
+
+    @Autowired
+    public IpApiClient(RestTemplate ipApiRestTemplate) {
+        this.ipApiRestTemplate = ipApiRestTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (batchEnabled) {
+            batchThread = Thread.ofPlatform().daemon().name("ip-api-batcher").start(this::runBatchLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (batchThread != null) {
+            batchThread.interrupt();
+        }
+    }
+
+    public Optional<String> fetchCountryCode(String ip) {
+        if (!batchEnabled) {
+            return toCountryCode(ipApiRestTemplate.getForObject(singleUri(ip), IpInfoDto.class));
+        }
+
+        PendingLookup lookup = new PendingLookup(ip, new CompletableFuture<>());
+        pendingLookups.add(lookup);
+        try {
+            return lookup.result().get(lookupTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resolving IP " + ip, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to resolve IP " + ip, e);
+        }
+    }
+
+    public Map<String, Optional<String>> fetchCountryCodes(Collection<String> ips) {
+        Map<String, Optional<String>> result = new HashMap<>();
+        List<String> chunk = new ArrayList<>(batchMaxSize);
+        for (String ip : ips) {
+            chunk.add(ip);
+            if (chunk.size() == batchMaxSize) {
+                result.putAll(postBatch(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            result.putAll(postBatch(chunk));
+        }
+        return result;
+    }
+
+    private void runBatchLoop() {
+        List<PendingLookup> batch = new ArrayList<>(batchMaxSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(pendingLookups.take());
+                long deadline = System.nanoTime() + batchMaxDelay.toNanos();
+                while (batch.size() < batchMaxSize) {
+                    PendingLookup next = pendingLookups.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                completeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void completeBatch(List<PendingLookup> batch) {
+        try {
+            Map<String, Optional<String>> countryCodes =
+                    postBatch(batch.stream().map(PendingLookup::ip).distinct().toList());
+            for (PendingLookup lookup : batch) {
+                lookup.result().complete(countryCodes.getOrDefault(lookup.ip(), Optional.empty()));
+            }
+        } catch (Exception e) {
+            logger.error("ip-api batch lookup failed - Size: {}", batch.size(), e);
+            batch.forEach(lookup -> lookup.result().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * ip-api answers in request order, while the echoed {@code query} may be normalised (e.g. IPv6),
+     * so results are matched to the requested IPs by position.
+     */
+    private Map<String, Optional<String>> postBatch(List<String> ips) {
+        IpInfoDto[] response = ipApiRestTemplate.postForObject(batchUri(), ips, IpInfoDto[].class);
+
+        Map<String, Optional<String>> result = new HashMap<>();
+        if (response != null) {
+            if (response.length != ips.size()) {
+                logger.warn("ip-api batch size mismatch - Requested: {}, Received: {}", ips.size(), response.length);
+            }
+            for (int i = 0; i < Math.min(ips.size(), response.length); i++) {
+                result.put(ips.get(i), toCountryCode(response[i]));
+            }
+        }
+        return result;
+    }
+
+    private Optional<String> toCountryCode(IpInfoDto ipInfoDto) {
+        if (ipInfoDto != null && "success".equals(ipInfoDto.getStatus())) {
+            return Optional.ofNullable(ipInfoDto.getCountryCode());
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    private URI singleUri(String ip) {
+        return UriComponentsBuilder
+                .newInstance()
+                .scheme(ipApiScheme)
+                .host(ipApiHost)
+                .port(ipApiPort)
+                .path("/json/{ip}")
+                .queryParam("fields", FIELDS)
+                .build(ip);
+    }
+
+    private URI batchUri() {
+        return UriComponentsBuilder
+                .newInstance()
+                .scheme(ipApiScheme)
+                .host(ipApiHost)
+                .port(ipApiPort)
+                .path("/batch")
+                .queryParam("fields", FIELDS)
+                .build()
+                .toUri();
+    }
+
+    private record PendingLookup(String ip, CompletableFuture<Optional<String>> result) {
+    }
+}
@@ -1,38 +1,107 @@
 package com.empik.couponservice.service;
 
-import com.empik.couponservice.dto.IpInfoDto;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class IpInfoService {
 
-    @Value("${ip-api.scheme}")
-    private String ipApiScheme;
+    @Value("${ip-geo.remote-fallback:true}")
+    private boolean remoteFallback;
 
-    @Value("${ip-api.host}")
-    private String ipApiHost;
+    private final GeoIpDatabaseService geoIpDatabaseService;
+    private final IpApiClient ipApiClient;
+    private final LoadingCache<String, Optional<String>> countryCodeCache;
+
+    @Autowired
+    public IpInfoService(GeoIpDatabaseService geoIpDatabaseService,
+                         IpApiClient ipApiClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${ip-api.cache.maximum-size:100000}") long maximumSize,
+                         @Value("${ip-api.cache.ttl:6h}") Duration ttl,
+                         @Value("${ip-api.cache.negative-ttl:1m}") Duration negativeTtl) {
+        this.geoIpDatabaseService = geoIpDatabaseService;
+        this.ipApiClient = ipApiClient;
+        this.countryCodeCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new CountryCodeExpiry(ttl, negativeTtl))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<String> load(String ip) {
+                        return ipApiClient.fetchCountryCode(ip);
+                    }
+
+                    @Override
+                    public Map<String, Optional<String>> loadAll(Set<? extends String> ips) {
+                        return ipApiClient.fetchCountryCodes(List.copyOf(ips));
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, countryCodeCache, "ipCountryCode");
+    }
 
     public String getCountryCodeByIp(String ip) {
-        URI uri = UriComponentsBuilder
-                .newInstance()
-                .scheme(ipApiScheme)
-                .host(ipApiHost)
-                .path("/json/{ip}")
-                .queryParam("fields", "status,countryCode,query")
-                .build(ip);
-
-        RestTemplate restTemplate = new RestTemplate();
-        IpInfoDto ipInfoDto = restTemplate.getForObject(uri, IpInfoDto.class);
-
-        if (ipInfoDto != null && ipInfoDto.getStatus().equals("success")) {
-            return ipInfoDto.getCountryCode();
-        } else {
-            return null;
+        if (geoIpDatabaseService.isEnabled()) {
+            String countryCode = geoIpDatabaseService.getCountryCodeByIp(ip);
+            if (countryCode != null || !remoteFallback) {
+                return countryCode;
+            }
+        }
+        return countryCodeCache.get(ip).orElse(null);
+    }
+
+    /**
+     * Bulk variant of {@link #getCountryCodeByIp}; cache misses are resolved with a single ip-api batch call.
+     * IPs whose country could not be determined are absent from the result.
+     */
+    public Map<String, String> getCountryCodesByIp(Collection<String> ips) {
+        Map<String, String> result = new HashMap<>();
+        Set<String> remaining = new HashSet<>();
+        for (String ip : ips) {
+            String countryCode = geoIpDatabaseService.isEnabled() ? geoIpDatabaseService.getCountryCodeByIp(ip) : null;
+            if (countryCode != null) {
+                result.put(ip, countryCode);
+            } else if (!geoIpDatabaseService.isEnabled() || remoteFallback) {
+                remaining.add(ip);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            countryCodeCache.getAll(remaining).forEach((ip, countryCode) -> countryCode.ifPresent(code -> result.put(ip, code)));
+        }
+        return result;
+    }
+
+    private record CountryCodeExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, Optional<String>> {
+
+        @Override
+        public long expireAfterCreate(String ip, Optional<String> countryCode, long currentTime) {
+            return (countryCode.isPresent() ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String ip, Optional<String> countryCode, long currentTime, long currentDuration) {
+            return expireAfterCreate(ip, countryCode, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String ip, Optional<String> countryCode, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
-}
\ No newline at end of file
+}
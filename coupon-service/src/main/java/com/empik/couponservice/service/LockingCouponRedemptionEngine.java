@@ -0,0 +1,77 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.domain.Coupon;
+import com.empik.couponservice.domain.CouponUsage;
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.couponservice.repository.CouponUsageRepository;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Redeems under a {@code PESSIMISTIC_WRITE} lock on the coupon row. Everything that can be rejected
+ * cheaply, including the per-user usage check and the remote country lookup, is expected to happen before
+ * calling {@link #redeem}. A concurrent repeated use is detected by {@code uk_user_coupon} when the usage is flushed.
+ * <p>
+ * Striped coupons are handed to {@link StripedCouponRedemptionEngine#redeem} before the row is locked. That path
+ * updates a stripe and then key-share locks the coupon for the usage foreign key, so holding {@code FOR UPDATE} on
+ * the coupon while updating a stripe would take the same locks in the opposite order. Only a coupon striped between
+ * the check and the lock still takes its use from the stripes under the row lock.
+ */
+@Service
+@ConditionalOnProperty(name = "coupon.redemption.engine", havingValue = "locking", matchIfMissing = true)
+public class LockingCouponRedemptionEngine implements CouponRedemptionEngine {
+
+    private final CouponRepository couponRepository;
+    private final CouponUsageRepository couponUsageRepository;
+    private final StripedCouponRedemptionEngine stripedCouponRedemptionEngine;
+
+    @Autowired
+    public LockingCouponRedemptionEngine(CouponRepository couponRepository,
+                                         CouponUsageRepository couponUsageRepository,
+                                         StripedCouponRedemptionEngine stripedCouponRedemptionEngine) {
+        this.couponRepository = couponRepository;
+        this.couponUsageRepository = couponUsageRepository;
+        this.stripedCouponRedemptionEngine = stripedCouponRedemptionEngine;
+    }
+
+    @Override
+    @Transactional
+    public CouponUseStatusEnum redeem(UUID couponId, String userId, String countryCode) {
+        if (couponRepository.findStripedById(couponId).orElse(false)) {
+            return stripedCouponRedemptionEngine.redeem(couponId, null, userId, countryCode);
+        }
+
+        Optional<Coupon> couponOptional = couponRepository.findByIdForUpdate(couponId);
+        if (couponOptional.isEmpty()) {
+            return CouponUseStatusEnum.NOT_EXISTS;
+        }
+
+        Coupon coupon = couponOptional.get();
+        if (coupon.isStriped()) {
+            if (!stripedCouponRedemptionEngine.consume(couponId, stripedCouponRedemptionEngine.stripeFor(userId))) {
+                return CouponUseStatusEnum.LIMIT_REACHED;
+            }
+        } else if (coupon.getCurrentUses() >= coupon.getMaxUses()) {
+            return CouponUseStatusEnum.LIMIT_REACHED;
+        }
+
+        CouponUsage couponUsage = new CouponUsage();
+        couponUsage.setCoupon(coupon);
+        couponUsage.setUserId(userId);
+        couponUsage.setUserCountryCode(countryCode);
+        couponUsageRepository.saveAndFlush(couponUsage);
+
+        if (!coupon.isStriped()) {
+            coupon.setCurrentUses(coupon.getCurrentUses() + 1);
+            couponRepository.save(coupon);
+        }
+
+        return CouponUseStatusEnum.SUCCESS;
+    }
+}
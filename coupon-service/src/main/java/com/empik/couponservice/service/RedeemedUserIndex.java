@@ -0,0 +1,96 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.repository.CouponUsageRepository;
+import com.empik.couponservice.util.Hashing;
+import com.empik.couponservice.util.LongHashSet;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * In-memory index of users who redeemed a coupon, held as a set of 64-bit user id hashes per coupon.
+ * It only ever answers "definitely used"; a miss falls through to the redemption engine and {@code uk_user_coupon}
+ * stays the final arbiter. Users are added only after a successful redemption or a constraint hit.
+ * <p>
+ * A coupon's set is warmed from {@code coupon_usages} in the background on first access; until it is ready
+ * every lookup is a miss. Cold coupons are evicted once the sets exceed {@code coupon.redeemed-index.max-memory}.
+ */
+@Service
+public class RedeemedUserIndex {
+
+    private final CouponUsageRepository couponUsageRepository;
+    private final AsyncLoadingCache<UUID, LongHashSet> index;
+
+    @Value("${coupon.redeemed-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${coupon.redeemed-index.page-size:10000}")
+    private int pageSize;
+
+    @Autowired
+    public RedeemedUserIndex(CouponUsageRepository couponUsageRepository,
+                             @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor taskExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${coupon.redeemed-index.max-memory:64MB}") DataSize maxMemory) {
+        this.couponUsageRepository = couponUsageRepository;
+        this.index = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((UUID couponId, LongHashSet users) -> (int) Math.min(Integer.MAX_VALUE, users.memoryBytes()))
+                .executor(taskExecutor)
+                .recordStats()
+                .buildAsync(this::warm);
+        CaffeineCacheMetrics.monitor(meterRegistry, index.synchronous(), "redeemedUserIndex");
+    }
+
+    public boolean isRedeemed(UUID couponId, String userId) {
+        if (!enabled) {
+            return false;
+        }
+        CompletableFuture<LongHashSet> users = index.get(couponId);
+        return users.isDone() && !users.isCompletedExceptionally()
+                && users.join().contains(Hashing.hash64(userId));
+    }
+
+    public void markRedeemed(UUID couponId, String userId) {
+        if (!enabled) {
+            return;
+        }
+        CompletableFuture<LongHashSet> users = index.getIfPresent(couponId);
+        if (users == null || !users.isDone() || users.isCompletedExceptionally()) {
+            return;
+        }
+        LongHashSet set = users.join();
+        long memoryBytes = set.memoryBytes();
+        if (set.add(Hashing.hash64(userId)) && set.memoryBytes() != memoryBytes) {
+            // Re-insert so that the cache re-weighs the grown set
+            index.synchronous().put(couponId, set);
+        }
+    }
+
+    private LongHashSet warm(UUID couponId) {
+        LongHashSet users = new LongHashSet(pageSize);
+        String after = "";
+        List<String> userIds;
+        do {
+            userIds = couponUsageRepository.findUserIdsAfter(couponId, after, PageRequest.of(0, pageSize));
+            userIds.forEach(userId -> users.add(Hashing.hash64(userId)));
+            if (!userIds.isEmpty()) {
+                after = userIds.getLast();
+            }
+        } while (userIds.size() == pageSize);
+        return users;
+    }
+}
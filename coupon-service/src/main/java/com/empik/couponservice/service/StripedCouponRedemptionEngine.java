@@ -0,0 +1,179 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.domain.Coupon;
+import com.empik.couponservice.domain.CouponStripe;
+import com.empik.couponservice.domain.CouponUsage;
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.couponservice.repository.CouponStripeRepository;
+import com.empik.couponservice.repository.CouponUsageRepository;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import com.empik.shared.event.CouponUseRequestEvent;
+import jakarta.transaction.Transactional;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Redemption for hot coupons. The remaining budget is split over {@code coupon.striping.stripes} rows in
+ * {@code coupon_stripes}, so concurrent listeners on different partitions decrement different rows instead of
+ * contending on the coupon row. A dry stripe takes half of the largest remaining stripe. {@code coupons.current_uses}
+ * is folded back from the stripes on a schedule.
+ * <p>
+ * coupon-api requests striping with the {@link CouponUseRequestEvent#STRIPE_HEADER} header. Striping is then recorded
+ * on the coupon itself ({@code coupons.striped}, set under the coupon row lock together with the stripes), and the
+ * whole-row paths hand striped coupons over to {@link #consume}, so no increment bypasses the stripe budgets.
+ */
+@Service
+public class StripedCouponRedemptionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedCouponRedemptionEngine.class);
+
+    private final CouponRepository couponRepository;
+    private final CouponUsageRepository couponUsageRepository;
+    private final CouponStripeRepository couponStripeRepository;
+
+    @Value("${coupon.striping.stripes:8}")
+    private int stripes;
+
+    @Autowired
+    public StripedCouponRedemptionEngine(CouponRepository couponRepository,
+                                         CouponUsageRepository couponUsageRepository,
+                                         CouponStripeRepository couponStripeRepository) {
+        this.couponRepository = couponRepository;
+        this.couponUsageRepository = couponUsageRepository;
+        this.couponStripeRepository = couponStripeRepository;
+    }
+
+    /**
+     * Returns the stripe requested in the {@link CouponUseRequestEvent#STRIPE_HEADER} header, or {@code null}.
+     */
+    public Integer stripeOf(byte[] stripeHeader) {
+        if (stripeHeader == null || stripeHeader.length != Integer.BYTES) {
+            return null;
+        }
+        return Math.floorMod(ByteBuffer.wrap(stripeHeader).getInt(), stripes);
+    }
+
+    public Integer stripeOf(Headers headers) {
+        Header header = headers.lastHeader(CouponUseRequestEvent.STRIPE_HEADER);
+        return header == null ? null : stripeOf(header.value());
+    }
+
+    /**
+     * The stripe used for a user's request when none was requested, e.g. when a whole-row path meets a striped coupon.
+     */
+    public int stripeFor(String userId) {
+        return Math.floorMod(userId.hashCode(), stripes);
+    }
+
+    /**
+     * The usage is inserted last: its foreign key check takes a key-share lock on the coupon row, which must not be
+     * held while {@link #consume} may still wait for the exclusive lock to initialise the stripes.
+     */
+    @Transactional
+    public CouponUseStatusEnum redeem(UUID couponId, Integer stripe, String userId, String countryCode) {
+        if (!consume(couponId, stripe != null ? stripe : stripeFor(userId))) {
+            return CouponUseStatusEnum.LIMIT_REACHED;
+        }
+
+        CouponUsage couponUsage = new CouponUsage();
+        couponUsage.setCoupon(couponRepository.getReferenceById(couponId));
+        couponUsage.setUserId(userId);
+        couponUsage.setUserCountryCode(countryCode);
+        couponUsageRepository.saveAndFlush(couponUsage);
+        return CouponUseStatusEnum.SUCCESS;
+    }
+
+    /**
+     * Takes one use from the coupon's stripes, striping the coupon first if needed. Must run in the caller's
+     * transaction; the caller records the usage.
+     */
+    @Transactional
+    public boolean consume(UUID couponId, int stripe) {
+        if (couponStripeRepository.decrementIfAvailable(couponId, stripe) == 1) {
+            return true;
+        }
+        if (initStripes(couponId) && couponStripeRepository.decrementIfAvailable(couponId, stripe) == 1) {
+            return true;
+        }
+        return takeFromDonor(couponId, stripe);
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.striping.sync-interval-ms:1000}")
+    public void syncCouponUses() {
+        int updated = couponStripeRepository.syncCouponUses();
+        if (updated > 0) {
+            logger.debug("Synced current uses from stripes - Coupons: {}", updated);
+        }
+    }
+
+    /**
+     * Splits the remaining budget over the stripes the first time a coupon is redeemed in striped mode.
+     * The coupon row lock serialises concurrent initialisations with each other and with the whole-row paths,
+     * which stop incrementing {@code current_uses} once {@code striped} is set.
+     */
+    private boolean initStripes(UUID couponId) {
+        if (couponStripeRepository.existsByCouponId(couponId)) {
+            return false;
+        }
+        Optional<Coupon> couponOptional = couponRepository.findByIdForUpdate(couponId);
+        if (couponOptional.isEmpty() || couponOptional.get().isStriped()) {
+            return false;
+        }
+
+        Coupon coupon = couponOptional.get();
+        int budget = Math.max(coupon.getMaxUses() - coupon.getCurrentUses(), 0);
+        List<CouponStripe> couponStripes = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            CouponStripe couponStripe = new CouponStripe();
+            couponStripe.setCoupon(coupon);
+            couponStripe.setStripe(i);
+            couponStripe.setRemaining(budget / stripes + (i < budget % stripes ? 1 : 0));
+            couponStripes.add(couponStripe);
+        }
+        couponStripeRepository.saveAllAndFlush(couponStripes);
+        coupon.setStriped(true);
+        couponRepository.saveAndFlush(coupon);
+
+        logger.info("Initialized coupon stripes - CouponId: {}, Stripes: {}, Budget: {}", couponId, stripes, budget);
+        return true;
+    }
+
+    /**
+     * Consumes one use from the stripe with the largest budget and moves half of what is left there
+     * to the dry stripe, so that it does not come back on the next request.
+     */
+    private boolean takeFromDonor(UUID couponId, int stripe) {
+        List<CouponStripe> couponStripes = couponStripeRepository.findByCouponIdForUpdate(couponId);
+        CouponStripe donor = couponStripes.stream()
+                .max(Comparator.comparingInt(CouponStripe::getRemaining))
+                .orElse(null);
+        if (donor == null || donor.getRemaining() == 0) {
+            return false;
+        }
+
+        donor.setRemaining(donor.getRemaining() - 1);
+        CouponStripe target = couponStripes.stream()
+                .filter(couponStripe -> couponStripe.getStripe() == stripe)
+                .findFirst()
+                .orElse(null);
+        if (target != null && target != donor) {
+            int moved = donor.getRemaining() / 2;
+            donor.setRemaining(donor.getRemaining() - moved);
+            target.setRemaining(target.getRemaining() + moved);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,342 @@
+package com.empik.couponservice.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable IP range to country table backed by sorted primitive arrays.
+ * Lines are either {@code start,end,CC} or {@code cidr,CC}; ranges must not overlap.
+ */
+public final class IpRangeTable {
+
+    private static final IpRangeTable EMPTY = new IpRangeTable(new int[0], new int[0], new String[0],
+            new long[0], new long[0], new long[0], new long[0], new String[0]);
+
+    private final int[] v4Starts;
+    private final int[] v4Ends;
+    private final String[] v4Countries;
+
+    private final long[] v6StartsHi;
+    private final long[] v6StartsLo;
+    private final long[] v6EndsHi;
+    private final long[] v6EndsLo;
+    private final String[] v6Countries;
+
+    private IpRangeTable(int[] v4Starts, int[] v4Ends, String[] v4Countries,
+                         long[] v6StartsHi, long[] v6StartsLo, long[] v6EndsHi, long[] v6EndsLo, String[] v6Countries) {
+        this.v4Starts = v4Starts;
+        this.v4Ends = v4Ends;
+        this.v4Countries = v4Countries;
+        this.v6StartsHi = v6StartsHi;
+        this.v6StartsLo = v6StartsLo;
+        this.v6EndsHi = v6EndsHi;
+        this.v6EndsLo = v6EndsLo;
+        this.v6Countries = v6Countries;
+    }
+
+    public static IpRangeTable empty() {
+        return EMPTY;
+    }
+
+    public static IpRangeTable parse(Reader source) throws IOException {
+        List<long[]> v4 = new ArrayList<>();
+        List<long[]> v6 = new ArrayList<>();
+        List<String> countries = new ArrayList<>();
+        Map<String, Integer> countryIndexes = new HashMap<>();
+
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.replace("\"", "").split(",");
+            byte[] start;
+            byte[] end;
+            String country;
+            if (fields.length == 2) {
+                byte[][] range = cidrToRange(fields[0].strip());
+                start = range == null ? null : range[0];
+                end = range == null ? null : range[1];
+                country = fields[1].strip();
+            } else if (fields.length >= 3) {
+                start = parseAddress(fields[0].strip());
+                end = parseAddress(fields[1].strip());
+                country = fields[2].strip();
+            } else {
+                throw new IOException("Malformed IP range at line " + lineNumber);
+            }
+
+            if (start == null || end == null) {
+                if (lineNumber == 1) {
+                    continue; // header row
+                }
+                throw new IOException("Malformed IP address at line " + lineNumber);
+            }
+            if (start.length != end.length || country.length() != 2) {
+                throw new IOException("Malformed IP range at line " + lineNumber);
+            }
+
+            int countryIndex = countryIndexes.computeIfAbsent(country.toUpperCase(), code -> {
+                countries.add(code);
+                return countries.size() - 1;
+            });
+            if (start.length == 4) {
+                v4.add(new long[]{toUnsignedInt(start), toUnsignedInt(end), countryIndex});
+            } else {
+                v6.add(new long[]{high(start), low(start), high(end), low(end), countryIndex});
+            }
+        }
+
+        v4.sort(Comparator.comparingLong(range -> range[0]));
+        v6.sort((a, b) -> compareUnsigned128(a[0], a[1], b[0], b[1]));
+
+        int[] v4Starts = new int[v4.size()];
+        int[] v4Ends = new int[v4.size()];
+        String[] v4Countries = new String[v4.size()];
+        for (int i = 0; i < v4.size(); i++) {
+            long[] range = v4.get(i);
+            v4Starts[i] = (int) range[0];
+            v4Ends[i] = (int) range[1];
+            v4Countries[i] = countries.get((int) range[2]);
+        }
+
+        long[] v6StartsHi = new long[v6.size()];
+        long[] v6StartsLo = new long[v6.size()];
+        long[] v6EndsHi = new long[v6.size()];
+        long[] v6EndsLo = new long[v6.size()];
+        String[] v6Countries = new String[v6.size()];
+        for (int i = 0; i < v6.size(); i++) {
+            long[] range = v6.get(i);
+            v6StartsHi[i] = range[0];
+            v6StartsLo[i] = range[1];
+            v6EndsHi[i] = range[2];
+            v6EndsLo[i] = range[3];
+            v6Countries[i] = countries.get((int) range[4]);
+        }
+
+        return new IpRangeTable(v4Starts, v4Ends, v4Countries, v6StartsHi, v6StartsLo, v6EndsHi, v6EndsLo, v6Countries);
+    }
+
+    public String lookup(String ip) {
+        byte[] address = ip == null ? null : parseAddress(ip.strip());
+        if (address == null) {
+            return null;
+        }
+        return address.length == 4 ? lookupV4((int) toUnsignedInt(address)) : lookupV6(high(address), low(address));
+    }
+
+    public int size() {
+        return v4Starts.length + v6Countries.length;
+    }
+
+    private String lookupV4(int ip) {
+        int low = 0;
+        int high = v4Starts.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Integer.compareUnsigned(v4Starts[mid], ip) <= 0) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (candidate < 0 || Integer.compareUnsigned(ip, v4Ends[candidate]) > 0) {
+            return null;
+        }
+        return v4Countries[candidate];
+    }
+
+    private String lookupV6(long ipHi, long ipLo) {
+        int low = 0;
+        int high = v6StartsHi.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compareUnsigned128(v6StartsHi[mid], v6StartsLo[mid], ipHi, ipLo) <= 0) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (candidate < 0 || compareUnsigned128(ipHi, ipLo, v6EndsHi[candidate], v6EndsLo[candidate]) > 0) {
+            return null;
+        }
+        return v6Countries[candidate];
+    }
+
+    /**
+     * Accepts address literals only; lookups get client-supplied values, which must never trigger name resolution.
+     * IPv4-mapped IPv6 addresses are returned as IPv4.
+     */
+    static byte[] parseAddress(String ip) {
+        if (ip.isEmpty()) {
+            return null;
+        }
+        return ip.indexOf(':') < 0 ? parseIpv4(ip) : parseIpv6(ip);
+    }
+
+    private static byte[] parseIpv6(String ip) {
+        int compression = ip.indexOf("::");
+        if (compression >= 0 && ip.indexOf("::", compression + 1) >= 0) {
+            return null;
+        }
+        int[] head = parseGroups(compression < 0 ? ip : ip.substring(0, compression), compression < 0);
+        int[] tail = compression < 0 ? new int[0] : parseGroups(ip.substring(compression + 2), true);
+        if (head == null || tail == null) {
+            return null;
+        }
+        int groups = head.length + tail.length;
+        if (compression < 0 ? groups != 8 : groups > 7) {
+            return null;
+        }
+
+        byte[] address = new byte[16];
+        for (int i = 0; i < head.length; i++) {
+            address[2 * i] = (byte) (head[i] >>> 8);
+            address[2 * i + 1] = (byte) head[i];
+        }
+        for (int i = 0; i < tail.length; i++) {
+            int group = 8 - tail.length + i;
+            address[2 * group] = (byte) (tail[i] >>> 8);
+            address[2 * group + 1] = (byte) tail[i];
+        }
+
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return address;
+            }
+        }
+        return address[10] == (byte) 0xff && address[11] == (byte) 0xff ? Arrays.copyOfRange(address, 12, 16) : address;
+    }
+
+    /**
+     * Parses colon-separated hex groups; the last one may be a dotted IPv4 address when {@code ipv4Tail} is set.
+     */
+    private static int[] parseGroups(String part, boolean ipv4Tail) {
+        if (part.isEmpty()) {
+            return new int[0];
+        }
+        String[] fields = part.split(":", -1);
+        boolean dotted = ipv4Tail && fields[fields.length - 1].indexOf('.') >= 0;
+        int[] groups = new int[fields.length + (dotted ? 1 : 0)];
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i];
+            if (dotted && i == fields.length - 1) {
+                byte[] ipv4 = parseIpv4(field);
+                if (ipv4 == null) {
+                    return null;
+                }
+                groups[i] = ((ipv4[0] & 0xff) << 8) | (ipv4[1] & 0xff);
+                groups[i + 1] = ((ipv4[2] & 0xff) << 8) | (ipv4[3] & 0xff);
+                continue;
+            }
+            if (field.isEmpty() || field.length() > 4) {
+                return null;
+            }
+            int value = 0;
+            for (int j = 0; j < field.length(); j++) {
+                int digit = Character.digit(field.charAt(j), 16);
+                if (digit < 0) {
+                    return null;
+                }
+                value = (value << 4) | digit;
+            }
+            groups[i] = value;
+        }
+        return groups;
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        byte[] address = new byte[4];
+        int octet = 0;
+        int value = -1;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return null;
+                }
+            } else if (c == '.' && value >= 0 && octet < 3) {
+                address[octet++] = (byte) value;
+                value = -1;
+            } else {
+                return null;
+            }
+        }
+        if (octet != 3 || value < 0) {
+            return null;
+        }
+        address[3] = (byte) value;
+        return address;
+    }
+
+    private static byte[][] cidrToRange(String cidr) {
+        int slash = cidr.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        byte[] base = parseAddress(cidr.substring(0, slash));
+        if (base == null) {
+            return null;
+        }
+        int prefix;
+        try {
+            prefix = Integer.parseInt(cidr.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (prefix < 0 || prefix > base.length * 8) {
+            return null;
+        }
+
+        byte[] start = Arrays.copyOf(base, base.length);
+        byte[] end = Arrays.copyOf(base, base.length);
+        for (int bit = prefix; bit < base.length * 8; bit++) {
+            int mask = 1 << (7 - (bit & 7));
+            start[bit >>> 3] &= (byte) ~mask;
+            end[bit >>> 3] |= (byte) mask;
+        }
+        return new byte[][]{start, end};
+    }
+
+    private static long toUnsignedInt(byte[] address) {
+        return ((address[0] & 0xffL) << 24) | ((address[1] & 0xffL) << 16) | ((address[2] & 0xffL) << 8) | (address[3] & 0xffL);
+    }
+
+    private static long high(byte[] address) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (address[i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static long low(byte[] address) {
+        long value = 0;
+        for (int i = 8; i < 16; i++) {
+            value = (value << 8) | (address[i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static int compareUnsigned128(long aHi, long aLo, long bHi, long bLo) {
+        int result = Long.compareUnsigned(aHi, bHi);
+        return result != 0 ? result : Long.compareUnsigned(aLo, bLo);
+    }
+}
@@ -0,0 +1,90 @@
+package com.empik.couponservice.util;
+
+/**
+ * Open-addressing hash set of primitive longs with linear probing. Zero is used as the empty-slot marker and
+ * is stored in a separate flag. All methods are synchronized; instances are small and held per coupon.
+ */
+public final class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] slots;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet(int expectedSize) {
+        this.slots = new long[tableSizeFor(expectedSize)];
+    }
+
+    public synchronized boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if (!insert(slots, value)) {
+            return false;
+        }
+        size++;
+        if (size > slots.length * LOAD_FACTOR) {
+            resize(slots.length * 2);
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        for (int index = (int) Hashing.mix(value) & mask; ; index = (index + 1) & mask) {
+            long slot = slots[index];
+            if (slot == value) {
+                return true;
+            }
+            if (slot == 0) {
+                return false;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long memoryBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+
+    private void resize(int capacity) {
+        long[] resized = new long[capacity];
+        for (long slot : slots) {
+            if (slot != 0) {
+                insert(resized, slot);
+            }
+        }
+        slots = resized;
+    }
+
+    private static boolean insert(long[] table, long value) {
+        int mask = table.length - 1;
+        for (int index = (int) Hashing.mix(value) & mask; ; index = (index + 1) & mask) {
+            long slot = table[index];
+            if (slot == value) {
+                return false;
+            }
+            if (slot == 0) {
+                table[index] = value;
+                return true;
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Math.max(16, (int) Math.ceil(expectedSize / LOAD_FACTOR));
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
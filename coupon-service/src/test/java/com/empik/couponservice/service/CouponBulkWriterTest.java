@@ -0,0 +1,46 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.event.CouponBulkRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CouponBulkWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CouponRepository couponRepository = mock(CouponRepository.class);
+    private final CouponCodeFilter couponCodeFilter = mock(CouponCodeFilter.class);
+    private final CouponBulkWriter writer = new CouponBulkWriter(jdbcTemplate, couponRepository, couponCodeFilter,
+            mock(CouponCatalogService.class));
+
+    @Test
+    void codesThatExistInAnotherCasingAreReportedAsExisting() {
+        when(couponCodeFilter.mightContain(anyString())).thenReturn(true);
+        when(couponRepository.findExistingCodes(Set.of("SUMMER10", "PROMO"))).thenReturn(List.of("SUMMER10"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            int[] counts = new int[invocation.<List<?>>getArgument(1).size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+
+        List<CouponCreateStatusEnum> statuses = writer.insert(List.of(
+                new CouponBulkRow("summer10", "PL", 10),
+                new CouponBulkRow("Promo", "PL", 10),
+                new CouponBulkRow("PROMO", "PL", 10),
+                new CouponBulkRow("", "PL", 10)));
+
+        assertEquals(List.of(CouponCreateStatusEnum.ALREADY_EXISTS, CouponCreateStatusEnum.CREATED,
+                CouponCreateStatusEnum.ALREADY_EXISTS, CouponCreateStatusEnum.FAILED), statuses);
+    }
+}
@@ -0,0 +1,66 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.domain.Coupon;
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.couponservice.service.CouponCatalogService.CouponSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CouponCatalogServiceTest {
+
+    private final CouponRepository couponRepository = mock(CouponRepository.class);
+
+    @SuppressWarnings("unchecked")
+    private final CouponCatalogService catalogService = new CouponCatalogService(couponRepository,
+            mock(KafkaTemplate.class), mock(CouponCodeFilter.class), new SimpleMeterRegistry(),
+            100, Duration.ofMinutes(10), Duration.ofSeconds(5));
+
+    @Test
+    void batchLookupsFindMixedCaseCodes() {
+        Coupon coupon = coupon("Summer10");
+        when(couponRepository.findByUpperCodeIn(List.of("SUMMER10"))).thenReturn(List.of(coupon));
+
+        Map<String, CouponSnapshot> coupons = catalogService.findByCodes(List.of("summer10"));
+
+        assertEquals(coupon.getId(), coupons.get("SUMMER10").id());
+        assertEquals(coupon.getId(), catalogService.findByCode("SUMMER10").orElseThrow().id());
+        verify(couponRepository, never()).findByCodeIgnoreCase(any());
+    }
+
+    @Test
+    void exhaustionOverwritesTheEntryOfAMixedCaseCode() {
+        Coupon coupon = coupon("Summer10");
+        when(couponRepository.findByUpperCodeIn(anyCollection())).thenReturn(List.of(coupon));
+        CouponSnapshot snapshot = catalogService.findByCodes(List.of("SUMMER10")).get("SUMMER10");
+
+        catalogService.couponExhausted(snapshot);
+
+        assertTrue(catalogService.findByCode("summer10").orElseThrow().exhausted());
+        verify(couponRepository, never()).findByCodeIgnoreCase(any());
+    }
+
+    private static Coupon coupon(String code) {
+        Coupon coupon = new Coupon();
+        coupon.setId(UUID.randomUUID());
+        coupon.setCode(code);
+        coupon.setCountryCode("PL");
+        coupon.setMaxUses(10);
+        coupon.setCurrentUses(0);
+        return coupon;
+    }
+}
@@ -0,0 +1,112 @@
+package com.empik.couponservice.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IpApiClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger batchRequests = new AtomicInteger();
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/json/", exchange -> respond(exchange.getResponseBody(), exchange,
+                "{\"status\":\"success\",\"countryCode\":\"PL\",\"query\":\"1.1.1.1\"}"));
+        server.createContext("/batch", exchange -> {
+            batchRequests.incrementAndGet();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            StringBuilder response = new StringBuilder("[");
+            for (String ip : body.replaceAll("[\\[\\]\"]", "").split(",")) {
+                if (response.length() > 1) {
+                    response.append(',');
+                }
+                response.append(ip.startsWith("10.")
+                        ? "{\"status\":\"fail\",\"query\":\"" + ip + "\"}"
+                        : "{\"status\":\"success\",\"countryCode\":\"DE\",\"query\":\"" + ip.toLowerCase() + "\"}");
+            }
+            respond(exchange.getResponseBody(), exchange, response.append(']').toString());
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchCountryCodeUsesSingleLookupWhenBatchingIsDisabled() {
+        IpApiClient client = newClient(false);
+
+        assertEquals(Optional.of("PL"), client.fetchCountryCode("1.1.1.1"));
+        assertEquals(0, batchRequests.get());
+    }
+
+    @Test
+    void fetchCountryCodesMapsBatchResponseByRequestOrder() {
+        IpApiClient client = newClient(false);
+
+        Map<String, Optional<String>> result = client.fetchCountryCodes(List.of("1.1.1.1", "10.0.0.1", "2001:DB8::1"));
+
+        assertEquals(Optional.of("DE"), result.get("1.1.1.1"));
+        assertEquals(Optional.empty(), result.get("10.0.0.1"));
+        assertEquals(Optional.of("DE"), result.get("2001:DB8::1"));
+    }
+
+    @Test
+    void concurrentLookupsAreGroupedIntoOneBatch() {
+        IpApiClient client = newClient(true);
+        ReflectionTestUtils.setField(client, "batchMaxDelay", Duration.ofMillis(200));
+        client.start();
+        try {
+            List<CompletableFuture<Optional<String>>> lookups = List.of("1.1.1.1", "2.2.2.2", "10.0.0.1").stream()
+                    .map(ip -> CompletableFuture.supplyAsync(() -> client.fetchCountryCode(ip)))
+                    .toList();
+
+            assertEquals(Optional.of("DE"), lookups.get(0).join());
+            assertEquals(Optional.of("DE"), lookups.get(1).join());
+            assertEquals(Optional.empty(), lookups.get(2).join());
+            assertEquals(1, batchRequests.get());
+        } finally {
+            client.stop();
+        }
+    }
+
+    private IpApiClient newClient(boolean batchEnabled) {
+        IpApiClient client = new IpApiClient(new RestTemplate());
+        ReflectionTestUtils.setField(client, "ipApiScheme", "http");
+        ReflectionTestUtils.setField(client, "ipApiHost", "localhost");
+        ReflectionTestUtils.setField(client, "ipApiPort", server.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "batchEnabled", batchEnabled);
+        ReflectionTestUtils.setField(client, "batchMaxSize", 100);
+        ReflectionTestUtils.setField(client, "batchMaxDelay", Duration.ofMillis(5));
+        ReflectionTestUtils.setField(client, "lookupTimeout", Duration.ofSeconds(2));
+        return client;
+    }
+
+    private static void respond(OutputStream body, com.sun.net.httpserver.HttpExchange exchange, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        body.write(bytes);
+        body.close();
+    }
+}
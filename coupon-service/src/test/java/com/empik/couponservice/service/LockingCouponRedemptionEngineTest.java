@@ -0,0 +1,69 @@
+package com.empik.couponservice.service;
+
+import com.empik.couponservice.domain.Coupon;
+import com.empik.couponservice.domain.CouponUsage;
+import com.empik.couponservice.repository.CouponRepository;
+import com.empik.couponservice.repository.CouponUsageRepository;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LockingCouponRedemptionEngineTest {
+
+    private static final UUID COUPON_ID = UUID.randomUUID();
+
+    private final CouponRepository couponRepository = mock(CouponRepository.class);
+    private final CouponUsageRepository couponUsageRepository = mock(CouponUsageRepository.class);
+    private final StripedCouponRedemptionEngine stripedCouponRedemptionEngine = mock(StripedCouponRedemptionEngine.class);
+    private final LockingCouponRedemptionEngine engine =
+            new LockingCouponRedemptionEngine(couponRepository, couponUsageRepository, stripedCouponRedemptionEngine);
+
+    @Test
+    void stripedCouponsAreRedeemedWithoutTheRowLock() {
+        when(couponRepository.findStripedById(COUPON_ID)).thenReturn(Optional.of(true));
+        when(stripedCouponRedemptionEngine.redeem(COUPON_ID, null, "user", "PL")).thenReturn(CouponUseStatusEnum.SUCCESS);
+
+        assertEquals(CouponUseStatusEnum.SUCCESS, engine.redeem(COUPON_ID, "user", "PL"));
+        verify(couponRepository, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void unstripedCouponsAreCountedUnderTheRowLock() {
+        Coupon coupon = coupon(1, 0);
+        when(couponRepository.findStripedById(COUPON_ID)).thenReturn(Optional.of(false));
+        when(couponRepository.findByIdForUpdate(COUPON_ID)).thenReturn(Optional.of(coupon));
+
+        assertEquals(CouponUseStatusEnum.SUCCESS, engine.redeem(COUPON_ID, "user", "PL"));
+        assertEquals(1, coupon.getCurrentUses());
+        verify(couponUsageRepository).saveAndFlush(any(CouponUsage.class));
+        verify(stripedCouponRedemptionEngine, never()).redeem(any(), any(), any(), any());
+    }
+
+    @Test
+    void exhaustedCouponsAreNotRedeemed() {
+        when(couponRepository.findStripedById(COUPON_ID)).thenReturn(Optional.of(false));
+        when(couponRepository.findByIdForUpdate(COUPON_ID)).thenReturn(Optional.of(coupon(1, 1)));
+
+        assertEquals(CouponUseStatusEnum.LIMIT_REACHED, engine.redeem(COUPON_ID, "user", "PL"));
+        verify(couponUsageRepository, never()).saveAndFlush(any());
+    }
+
+    private static Coupon coupon(int maxUses, int currentUses) {
+        Coupon coupon = new Coupon();
+        coupon.setId(COUPON_ID);
+        coupon.setCode("SUMMER10");
+        coupon.setCountryCode("PL");
+        coupon.setMaxUses(maxUses);
+        coupon.setCurrentUses(currentUses);
+        return coupon;
+    }
+}
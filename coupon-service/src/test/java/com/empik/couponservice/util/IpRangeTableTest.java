@@ -0,0 +1,80 @@
+package com.empik.couponservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IpRangeTableTest {
+
+    @Test
+    void lookupResolvesIpv4Ranges() throws IOException {
+        IpRangeTable table = IpRangeTable.parse(new StringReader("""
+                start,end,country
+                "10.0.0.0","10.0.0.255","PL"
+                1.0.0.0,1.0.0.255,us
+                200.0.0.0,255.255.255.255,DE
+                """));
+
+        assertEquals("PL", table.lookup("10.0.0.17"));
+        assertEquals("US", table.lookup("1.0.0.0"));
+        assertEquals("US", table.lookup("1.0.0.255"));
+        assertEquals("DE", table.lookup("255.255.255.255"));
+        assertNull(table.lookup("1.0.1.0"));
+        assertNull(table.lookup("0.255.255.255"));
+    }
+
+    @Test
+    void lookupResolvesCidrAndIpv6Ranges() throws IOException {
+        IpRangeTable table = IpRangeTable.parse(new StringReader("""
+                # network,country
+                192.168.0.0/16,PL
+                2001:db8::/32,FR
+                ::1,::1,LU
+                """));
+
+        assertEquals("PL", table.lookup("192.168.255.1"));
+        assertNull(table.lookup("192.169.0.0"));
+        assertEquals("FR", table.lookup("2001:db8:ffff::1"));
+        assertNull(table.lookup("2001:db9::"));
+        assertEquals("LU", table.lookup("::1"));
+    }
+
+    @Test
+    void lookupRejectsInvalidAddresses() throws IOException {
+        IpRangeTable table = IpRangeTable.parse(new StringReader("0.0.0.0/0,PL"));
+
+        assertEquals("PL", table.lookup("8.8.8.8"));
+        assertNull(table.lookup("256.1.1.1"));
+        assertNull(table.lookup("1.2.3"));
+        assertNull(table.lookup(null));
+    }
+
+    @Test
+    void lookupAcceptsIpv6LiteralsOnly() throws IOException {
+        IpRangeTable table = IpRangeTable.parse(new StringReader("""
+                10.0.0.0/8,PL
+                2001:db8::/32,FR
+                """));
+
+        assertEquals("FR", table.lookup("2001:DB8:0:0:0:0:0:1"));
+        assertEquals("FR", table.lookup("2001:db8::10.1.2.3"));
+        assertEquals("PL", table.lookup("::ffff:10.1.2.3"));
+        assertNull(table.lookup("localhost"));
+        assertNull(table.lookup("example.com:80"));
+        assertNull(table.lookup("2001:db8::1::1"));
+        assertNull(table.lookup("2001:db8:0:0:0:0:0:0:1"));
+        assertNull(table.lookup("2001:db8::12345"));
+        assertNull(table.lookup("fe80::1%eth0"));
+        assertNull(table.lookup("[2001:db8::1]"));
+    }
+
+    @Test
+    void parseFailsOnMalformedRows() {
+        assertThrows(IOException.class, () -> IpRangeTable.parse(new StringReader("1.0.0.0,1.0.0.255,PL\nbogus,row,XX")));
+    }
+}
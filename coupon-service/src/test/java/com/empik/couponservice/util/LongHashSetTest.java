@@ -0,0 +1,36 @@
+package com.empik.couponservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashSetTest {
+
+    @Test
+    void addReportsNewValuesOnly() {
+        LongHashSet set = new LongHashSet(4);
+
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void containsSurvivesResizing() {
+        LongHashSet set = new LongHashSet(1);
+        for (long i = -5_000; i < 5_000; i++) {
+            set.add(i * 7919);
+        }
+
+        assertEquals(10_000, set.size());
+        for (long i = -5_000; i < 5_000; i++) {
+            assertTrue(set.contains(i * 7919));
+        }
+        assertFalse(set.contains(1L));
+        assertTrue(set.memoryBytes() >= 2L * 10_000 * Long.BYTES);
+    }
+}
@@ -0,0 +1,92 @@
+package com.empik.shared.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Cursor over an encoded event, mirroring {@link BinaryWriter}.
+ */
+public final class BinaryReader {
+
+    private final byte[] buffer;
+    private int position;
+
+    public BinaryReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++] & 0xff;
+    }
+
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at position " + position);
+    }
+
+    public long readLong() {
+        require(Long.BYTES);
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (buffer[position++] & 0xff);
+        }
+        return value;
+    }
+
+    public Integer readNullableInt() {
+        if (readByte() == 0) {
+            return null;
+        }
+        int zigZag = readVarInt();
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    public UUID readUuid() {
+        if (readByte() == 0) {
+            return null;
+        }
+        return new UUID(readLong(), readLong());
+    }
+
+    public String readString() {
+        int prefix = readVarInt();
+        if (prefix == 0) {
+            return null;
+        }
+        int length = prefix - 1;
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Reads an element count and checks that the remaining bytes can hold that many elements, so a corrupt prefix
+     * fails before anything is allocated for it.
+     */
+    public int readCount(int minElementBytes) {
+        int count = readVarInt();
+        if (count < 0 || count > remaining() / minElementBytes) {
+            throw new IllegalArgumentException("Invalid element count " + count + " at position " + position);
+        }
+        return count;
+    }
+
+    public int remaining() {
+        return buffer.length - position;
+    }
+
+    private void require(int bytes) {
+        if (bytes < 0 || bytes > remaining()) {
+            throw new IllegalArgumentException("Truncated event: needed " + bytes + " bytes at position " + position);
+        }
+    }
+}
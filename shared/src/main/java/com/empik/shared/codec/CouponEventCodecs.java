@@ -0,0 +1,217 @@
+package com.empik.shared.codec;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponStateEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import com.empik.shared.event.CouponBulkCreateRequestEvent;
+import com.empik.shared.event.CouponBulkCreateResponseEvent;
+import com.empik.shared.event.CouponBulkRow;
+import com.empik.shared.event.CouponCreateRequestEvent;
+import com.empik.shared.event.CouponCreateResponseEvent;
+import com.empik.shared.event.CouponRedeemedEvent;
+import com.empik.shared.event.CouponStateEvent;
+import com.empik.shared.event.CouponUseRequestEvent;
+import com.empik.shared.event.CouponUseResponseEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary schemas of the coupon events. Type ids and field order are part of the wire format.
+ */
+public final class CouponEventCodecs {
+
+    private static final CouponCreateStatusEnum[] CREATE_STATUSES = CouponCreateStatusEnum.values();
+    private static final CouponUseStatusEnum[] USE_STATUSES = CouponUseStatusEnum.values();
+    private static final CouponStateEnum[] STATES = CouponStateEnum.values();
+
+    public static final EventCodec<CouponCreateRequestEvent> CREATE_REQUEST = new EventCodec<>(1, 64) {
+        @Override
+        protected void writeBody(CouponCreateRequestEvent event, BinaryWriter writer) {
+            writer.writeUuid(event.getRequestId())
+                    .writeString(event.getCode())
+                    .writeString(event.getCountryCode())
+                    .writeVarInt(event.getMaxUsage());
+        }
+
+        @Override
+        protected CouponCreateRequestEvent readBody(BinaryReader reader, int version) {
+            CouponCreateRequestEvent event = new CouponCreateRequestEvent();
+            event.setRequestId(reader.readUuid());
+            event.setCode(reader.readString());
+            event.setCountryCode(reader.readString());
+            event.setMaxUsage(reader.readVarInt());
+            return event;
+        }
+    };
+
+    public static final EventCodec<CouponCreateResponseEvent> CREATE_RESPONSE = new EventCodec<>(2, 24) {
+        @Override
+        protected void writeBody(CouponCreateResponseEvent event, BinaryWriter writer) {
+            writer.writeUuid(event.getRequestId()).writeByte(ordinal(event.getStatus()));
+        }
+
+        @Override
+        protected CouponCreateResponseEvent readBody(BinaryReader reader, int version) {
+            CouponCreateResponseEvent event = new CouponCreateResponseEvent();
+            event.setRequestId(reader.readUuid());
+            event.setStatus(constant(CREATE_STATUSES, reader.readByte()));
+            return event;
+        }
+    };
+
+    public static final EventCodec<CouponUseRequestEvent> USE_REQUEST = new EventCodec<>(3, 96) {
+        @Override
+        protected void writeBody(CouponUseRequestEvent event, BinaryWriter writer) {
+            writer.writeUuid(event.getRequestId())
+                    .writeString(event.getCode())
+                    .writeString(event.getUserId())
+                    .writeString(event.getIpAddress());
+        }
+
+        @Override
+        protected CouponUseRequestEvent readBody(BinaryReader reader, int version) {
+            CouponUseRequestEvent event = new CouponUseRequestEvent();
+            event.setRequestId(reader.readUuid());
+            event.setCode(reader.readString());
+            event.setUserId(reader.readString());
+            event.setIpAddress(reader.readString());
+            return event;
+        }
+    };
+
+    public static final EventCodec<CouponUseResponseEvent> USE_RESPONSE = new EventCodec<>(4, 24) {
+        @Override
+        protected void writeBody(CouponUseResponseEvent event, BinaryWriter writer) {
+            writer.writeUuid(event.getRequestId()).writeByte(ordinal(event.getStatus()));
+        }
+
+        @Override
+        protected CouponUseResponseEvent readBody(BinaryReader reader, int version) {
+            CouponUseResponseEvent event = new CouponUseResponseEvent();
+            event.setRequestId(reader.readUuid());
+            event.setStatus(constant(USE_STATUSES, reader.readByte()));
+            return event;
+        }
+    };
+
+    public static final EventCodec<CouponStateEvent> STATE = new EventCodec<>(5, 64) {
+        @Override
+        protected void writeBody(CouponStateEvent event, BinaryWriter writer) {
+            writer.writeUuid(event.getCouponId())
+                    .writeString(event.getCode())
+                    .writeString(event.getCountryCode())
+                    .writeNullableInt(event.getMaxUses())
+                    .writeByte(ordinal(event.getState()));
+        }
+
+        @Override
+        protected CouponStateEvent readBody(BinaryReader reader, int version) {
+            CouponStateEvent event = new CouponStateEvent();
+            event.setCouponId(reader.readUuid());
+            event.setCode(reader.readString());
+            event.setCountryCode(reader.readString());
+            event.setMaxUses(reader.readNullableInt());
+            event.setState(constant(STATES, reader.readByte()));
+            return event;
+        }
+    };
+
+    public static final EventCodec<CouponBulkCreateRequestEvent> BULK_CREATE_REQUEST = new EventCodec<>(6, 16 * 1024) {
+        @Override
+        protected void writeBody(CouponBulkCreateRequestEvent event, BinaryWriter writer) {
+            writer.writeUuid(event.getJobId())
+                    .writeVarInt(event.getFirstRow())
+                    .writeVarInt(event.getRows().size());
+            for (CouponBulkRow row : event.getRows()) {
+                if (row == null) {
+                    writer.writeByte(0);
+                } else {
+                    writer.writeByte(1)
+                            .writeString(row.getCode())
+                            .writeString(row.getCountryCode())
+                            .writeVarInt(row.getMaxUsage());
+                }
+            }
+        }
+
+        @Override
+        protected CouponBulkCreateRequestEvent readBody(BinaryReader reader, int version) {
+            CouponBulkCreateRequestEvent event = new CouponBulkCreateRequestEvent();
+            event.setJobId(reader.readUuid());
+            event.setFirstRow(reader.readVarInt());
+            int size = reader.readCount(1);
+            List<CouponBulkRow> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rows.add(reader.readByte() == 0
+                        ? null
+                        : new CouponBulkRow(reader.readString(), reader.readString(), reader.readVarInt()));
+            }
+            event.setRows(rows);
+            return event;
+        }
+    };
+
+    public static final EventCodec<CouponBulkCreateResponseEvent> BULK_CREATE_RESPONSE = new EventCodec<>(7, 1024) {
+        @Override
+        protected void writeBody(CouponBulkCreateResponseEvent event, BinaryWriter writer) {
+            writer.writeUuid(event.getJobId())
+                    .writeVarInt(event.getFirstRow())
+                    .writeVarInt(event.getStatuses().size());
+            event.getStatuses().forEach(status -> writer.writeByte(ordinal(status)));
+        }
+
+        @Override
+        protected CouponBulkCreateResponseEvent readBody(BinaryReader reader, int version) {
+            CouponBulkCreateResponseEvent event = new CouponBulkCreateResponseEvent();
+            event.setJobId(reader.readUuid());
+            event.setFirstRow(reader.readVarInt());
+            int size = reader.readCount(1);
+            List<CouponCreateStatusEnum> statuses = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                statuses.add(constant(CREATE_STATUSES, reader.readByte()));
+            }
+            event.setStatuses(statuses);
+            return event;
+        }
+    };
+
+    public static final EventCodec<CouponRedeemedEvent> REDEEMED = new EventCodec<>(8, 96) {
+        @Override
+        protected void writeBody(CouponRedeemedEvent event, BinaryWriter writer) {
+            writer.writeUuid(event.getCouponId())
+                    .writeString(event.getCode())
+                    .writeString(event.getCountryCode())
+                    .writeString(event.getUserId())
+                    .writeLong(event.getUsedAt());
+        }
+
+        @Override
+        protected CouponRedeemedEvent readBody(BinaryReader reader, int version) {
+            CouponRedeemedEvent event = new CouponRedeemedEvent();
+            event.setCouponId(reader.readUuid());
+            event.setCode(reader.readString());
+            event.setCountryCode(reader.readString());
+            event.setUserId(reader.readString());
+            event.setUsedAt(reader.readLong());
+            return event;
+        }
+    };
+
+    private CouponEventCodecs() {
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? 0 : value.ordinal() + 1;
+    }
+
+    private static <E extends Enum<E>> E constant(E[] constants, int ordinal) {
+        if (ordinal == 0) {
+            return null;
+        }
+        if (ordinal > constants.length) {
+            throw new IllegalArgumentException("Unknown enum ordinal " + (ordinal - 1));
+        }
+        return constants[ordinal - 1];
+    }
+}
@@ -0,0 +1,51 @@
+package com.empik.shared.codec;
+
+/**
+ * Versioned binary codec for one event type. Every payload starts with {@link #MAGIC}, the format
+ * {@link #VERSION} and a type id; fields follow in schema order. Enums are written by ordinal, so their
+ * constants may only ever be appended.
+ */
+public abstract class EventCodec<T> {
+
+    public static final byte MAGIC = (byte) 0xCE;
+    public static final byte VERSION = 1;
+
+    private final int typeId;
+    private final int expectedSize;
+
+    protected EventCodec(int typeId, int expectedSize) {
+        this.typeId = typeId;
+        this.expectedSize = expectedSize;
+    }
+
+    public byte[] encode(T event) {
+        BinaryWriter writer = new BinaryWriter(expectedSize);
+        writer.writeByte(MAGIC).writeByte(VERSION).writeByte(typeId);
+        writeBody(event, writer);
+        return writer.toByteArray();
+    }
+
+    public T decode(byte[] data) {
+        BinaryReader reader = new BinaryReader(data);
+        if ((byte) reader.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary event payload");
+        }
+        int version = reader.readByte();
+        if (version > VERSION) {
+            throw new IllegalArgumentException("Unsupported event format version " + version);
+        }
+        int actualTypeId = reader.readByte();
+        if (actualTypeId != typeId) {
+            throw new IllegalArgumentException("Expected event type " + typeId + " but got " + actualTypeId);
+        }
+        return readBody(reader, version);
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    protected abstract void writeBody(T event, BinaryWriter writer);
+
+    protected abstract T readBody(BinaryReader reader, int version);
+}
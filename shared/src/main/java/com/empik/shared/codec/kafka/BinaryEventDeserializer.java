@@ -0,0 +1,51 @@
+package com.empik.shared.codec.kafka;
+
+import com.empik.shared.codec.EventCodec;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Decodes binary payloads for one topic. Payloads without the binary magic byte are handed to the fallback,
+ * which lets consumers read records produced before a switch to the binary format.
+ */
+public class BinaryEventDeserializer<T> implements Deserializer<T> {
+
+    private final EventCodec<T> codec;
+    private final Deserializer<T> fallback;
+
+    public BinaryEventDeserializer(EventCodec<T> codec, Deserializer<T> fallback) {
+        this.codec = codec;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (EventCodec.isBinary(data)) {
+            try {
+                return codec.decode(data);
+            } catch (IllegalArgumentException e) {
+                throw new SerializationException("Cannot decode binary event from topic " + topic, e);
+            }
+        }
+        if (fallback == null) {
+            throw new SerializationException("Non-binary payload on topic " + topic);
+        }
+        return headers == null ? fallback.deserialize(topic, data) : fallback.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        if (fallback != null) {
+            fallback.close();
+        }
+    }
+}
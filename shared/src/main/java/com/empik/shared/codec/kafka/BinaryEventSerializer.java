@@ -0,0 +1,18 @@
+package com.empik.shared.codec.kafka;
+
+import com.empik.shared.codec.EventCodec;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class BinaryEventSerializer<T> implements Serializer<T> {
+
+    private final EventCodec<T> codec;
+
+    public BinaryEventSerializer(EventCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        return data == null ? null : codec.encode(data);
+    }
+}
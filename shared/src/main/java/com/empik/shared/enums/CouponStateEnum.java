@@ -0,0 +1,6 @@
+package com.empik.shared.enums;
+
+public enum CouponStateEnum {
+
+    ACTIVE, EXHAUSTED
+}
@@ -0,0 +1,39 @@
+package com.empik.shared.event;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Consecutive rows of a bulk create job, starting at row {@code firstRow}. Rows that failed validation in
+ * coupon-api are sent as {@code null} so that the answer stays aligned with the row numbers.
+ */
+public class CouponBulkCreateRequestEvent {
+
+    private UUID jobId;
+    private int firstRow;
+    private List<CouponBulkRow> rows;
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(UUID jobId) {
+        this.jobId = jobId;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public void setFirstRow(int firstRow) {
+        this.firstRow = firstRow;
+    }
+
+    public List<CouponBulkRow> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<CouponBulkRow> rows) {
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,40 @@
+package com.empik.shared.event;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Statuses of the rows of one {@link CouponBulkCreateRequestEvent}, in the same order.
+ */
+public class CouponBulkCreateResponseEvent {
+
+    private UUID jobId;
+    private int firstRow;
+    private List<CouponCreateStatusEnum> statuses;
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(UUID jobId) {
+        this.jobId = jobId;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public void setFirstRow(int firstRow) {
+        this.firstRow = firstRow;
+    }
+
+    public List<CouponCreateStatusEnum> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<CouponCreateStatusEnum> statuses) {
+        this.statuses = statuses;
+    }
+}
@@ -0,0 +1,41 @@
+package com.empik.shared.event;
+
+public class CouponBulkRow {
+
+    private String code;
+    private String countryCode;
+    private int maxUsage;
+
+    public CouponBulkRow() {
+    }
+
+    public CouponBulkRow(String code, String countryCode, int maxUsage) {
+        this.code = code;
+        this.countryCode = countryCode;
+        this.maxUsage = maxUsage;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public void setCountryCode(String countryCode) {
+        this.countryCode = countryCode;
+    }
+
+    public int getMaxUsage() {
+        return maxUsage;
+    }
+
+    public void setMaxUsage(int maxUsage) {
+        this.maxUsage = maxUsage;
+    }
+}
@@ -0,0 +1,58 @@
+package com.empik.shared.event;
+
+import java.util.UUID;
+
+/**
+ * Emitted by coupon-service after a successful redemption has been committed.
+ */
+public class CouponRedeemedEvent {
+
+    private UUID couponId;
+    private String code;
+    private String countryCode;
+    private String userId;
+    private long usedAt;
+
+    public UUID getCouponId() {
+        return couponId;
+    }
+
+    public void setCouponId(UUID couponId) {
+        this.couponId = couponId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public void setCountryCode(String countryCode) {
+        this.countryCode = countryCode;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * @return redemption time in epoch milliseconds
+     */
+    public long getUsedAt() {
+        return usedAt;
+    }
+
+    public void setUsedAt(long usedAt) {
+        this.usedAt = usedAt;
+    }
+}
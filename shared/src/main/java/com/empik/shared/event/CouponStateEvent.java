@@ -0,0 +1,54 @@
+package com.empik.shared.event;
+
+import com.empik.shared.enums.CouponStateEnum;
+
+import java.util.UUID;
+
+public class CouponStateEvent {
+
+    private UUID couponId;
+    private String code;
+    private String countryCode;
+    private Integer maxUses;
+    private CouponStateEnum state;
+
+    public UUID getCouponId() {
+        return couponId;
+    }
+
+    public void setCouponId(UUID couponId) {
+        this.couponId = couponId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public void setCountryCode(String countryCode) {
+        this.countryCode = countryCode;
+    }
+
+    public Integer getMaxUses() {
+        return maxUses;
+    }
+
+    public void setMaxUses(Integer maxUses) {
+        this.maxUses = maxUses;
+    }
+
+    public CouponStateEnum getState() {
+        return state;
+    }
+
+    public void setState(CouponStateEnum state) {
+        this.state = state;
+    }
+}
@@ -4,6 +4,11 @@ import java.util.UUID;
 
 public class CouponUseRequestEvent {
 
+    /**
+     * Kafka header carrying the stripe, as a 4-byte int, of a request that coupon-api asks to redeem in striped mode.
+     */
+    public static final String STRIPE_HEADER = "coupon_stripe";
+
     private UUID requestId;
     private String code;
     private String userId;
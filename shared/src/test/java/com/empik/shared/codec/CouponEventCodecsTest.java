@@ -0,0 +1,144 @@
+package com.empik.shared.codec;
+
+import com.empik.shared.enums.CouponCreateStatusEnum;
+import com.empik.shared.enums.CouponStateEnum;
+import com.empik.shared.enums.CouponUseStatusEnum;
+import com.empik.shared.event.CouponBulkCreateRequestEvent;
+import com.empik.shared.event.CouponBulkCreateResponseEvent;
+import com.empik.shared.event.CouponBulkRow;
+import com.empik.shared.event.CouponCreateRequestEvent;
+import com.empik.shared.event.CouponStateEvent;
+import com.empik.shared.event.CouponUseRequestEvent;
+import com.empik.shared.event.CouponUseResponseEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CouponEventCodecsTest {
+
+    @Test
+    void useRequestRoundTripsIncludingNonAsciiStrings() {
+        CouponUseRequestEvent event = new CouponUseRequestEvent();
+        event.setRequestId(UUID.randomUUID());
+        event.setCode("SUMMER2025");
+        event.setUserId("użytkownik-42");
+        event.setIpAddress("2001:db8::1");
+
+        byte[] encoded = CouponEventCodecs.USE_REQUEST.encode(event);
+        CouponUseRequestEvent decoded = CouponEventCodecs.USE_REQUEST.decode(encoded);
+
+        assertTrue(EventCodec.isBinary(encoded));
+        assertEquals(event.getRequestId(), decoded.getRequestId());
+        assertEquals(event.getCode(), decoded.getCode());
+        assertEquals(event.getUserId(), decoded.getUserId());
+        assertEquals(event.getIpAddress(), decoded.getIpAddress());
+    }
+
+    @Test
+    void responseAndStateEventsRoundTripWithNullFields() {
+        CouponUseResponseEvent response = new CouponUseResponseEvent();
+        response.setRequestId(UUID.randomUUID());
+        response.setStatus(CouponUseStatusEnum.LIMIT_REACHED);
+
+        CouponUseResponseEvent decodedResponse =
+                CouponEventCodecs.USE_RESPONSE.decode(CouponEventCodecs.USE_RESPONSE.encode(response));
+        assertEquals(response.getRequestId(), decodedResponse.getRequestId());
+        assertEquals(CouponUseStatusEnum.LIMIT_REACHED, decodedResponse.getStatus());
+
+        CouponStateEvent state = new CouponStateEvent();
+        state.setCode("WINTER");
+        state.setState(CouponStateEnum.EXHAUSTED);
+
+        CouponStateEvent decodedState = CouponEventCodecs.STATE.decode(CouponEventCodecs.STATE.encode(state));
+        assertNull(decodedState.getCouponId());
+        assertNull(decodedState.getCountryCode());
+        assertNull(decodedState.getMaxUses());
+        assertEquals("WINTER", decodedState.getCode());
+        assertEquals(CouponStateEnum.EXHAUSTED, decodedState.getState());
+    }
+
+    @Test
+    void encodingIsCompact() {
+        CouponCreateRequestEvent event = new CouponCreateRequestEvent();
+        event.setRequestId(new UUID(1, 2));
+        event.setCode("ABC");
+        event.setCountryCode("PL");
+        event.setMaxUsage(300);
+
+        byte[] encoded = CouponEventCodecs.CREATE_REQUEST.encode(event);
+
+        // header(3) + uuid(17) + code(4) + country(3) + varint(2)
+        assertEquals(29, encoded.length);
+        assertArrayEquals(encoded, CouponEventCodecs.CREATE_REQUEST.encode(CouponEventCodecs.CREATE_REQUEST.decode(encoded)));
+    }
+
+    @Test
+    void decodeRejectsForeignPayloads() {
+        byte[] json = "{\"requestId\":null}".getBytes();
+        byte[] useResponse = CouponEventCodecs.USE_RESPONSE.encode(new CouponUseResponseEvent());
+        byte[] futureVersion = useResponse.clone();
+        futureVersion[1] = EventCodec.VERSION + 1;
+
+        assertFalse(EventCodec.isBinary(json));
+        assertThrows(IllegalArgumentException.class, () -> CouponEventCodecs.USE_RESPONSE.decode(json));
+        assertThrows(IllegalArgumentException.class, () -> CouponEventCodecs.CREATE_RESPONSE.decode(useResponse));
+        assertThrows(IllegalArgumentException.class, () -> CouponEventCodecs.USE_RESPONSE.decode(futureVersion));
+    }
+
+    @Test
+    void decodeRejectsLengthPrefixesBeyondThePayload() {
+        BinaryWriter hugeString = new BinaryWriter(16).writeByte(EventCodec.MAGIC).writeByte(EventCodec.VERSION).writeByte(1)
+                .writeUuid(null).writeVarInt(Integer.MAX_VALUE);
+        BinaryWriter hugeList = new BinaryWriter(16).writeByte(EventCodec.MAGIC).writeByte(EventCodec.VERSION).writeByte(6)
+                .writeUuid(null).writeVarInt(0).writeVarInt(1 << 30);
+        BinaryWriter negativeList = new BinaryWriter(16).writeByte(EventCodec.MAGIC).writeByte(EventCodec.VERSION).writeByte(7)
+                .writeUuid(null).writeVarInt(0).writeVarInt(-1);
+
+        assertThrows(IllegalArgumentException.class, () -> CouponEventCodecs.CREATE_REQUEST.decode(hugeString.toByteArray()));
+        assertThrows(IllegalArgumentException.class, () -> CouponEventCodecs.BULK_CREATE_REQUEST.decode(hugeList.toByteArray()));
+        assertThrows(IllegalArgumentException.class, () -> CouponEventCodecs.BULK_CREATE_RESPONSE.decode(negativeList.toByteArray()));
+    }
+
+    @Test
+    void bulkCreateRequestKeepsInvalidRowsAsGaps() {
+        CouponBulkCreateRequestEvent event = new CouponBulkCreateRequestEvent();
+        event.setJobId(UUID.randomUUID());
+        event.setFirstRow(1_000);
+        event.setRows(Arrays.asList(new CouponBulkRow("A1", "PL", 5), null, new CouponBulkRow("A3", "DE", 1_000_000)));
+
+        CouponBulkCreateRequestEvent decoded = CouponEventCodecs.BULK_CREATE_REQUEST.decode(
+                CouponEventCodecs.BULK_CREATE_REQUEST.encode(event));
+
+        assertEquals(event.getJobId(), decoded.getJobId());
+        assertEquals(1_000, decoded.getFirstRow());
+        assertEquals(3, decoded.getRows().size());
+        assertEquals("A1", decoded.getRows().get(0).getCode());
+        assertNull(decoded.getRows().get(1));
+        assertEquals("DE", decoded.getRows().get(2).getCountryCode());
+        assertEquals(1_000_000, decoded.getRows().get(2).getMaxUsage());
+    }
+
+    @Test
+    void bulkCreateResponseRoundTrips() {
+        CouponBulkCreateResponseEvent event = new CouponBulkCreateResponseEvent();
+        event.setJobId(UUID.randomUUID());
+        event.setFirstRow(500);
+        event.setStatuses(List.of(CouponCreateStatusEnum.CREATED, CouponCreateStatusEnum.ALREADY_EXISTS, CouponCreateStatusEnum.FAILED));
+
+        CouponBulkCreateResponseEvent decoded = CouponEventCodecs.BULK_CREATE_RESPONSE.decode(
+                CouponEventCodecs.BULK_CREATE_RESPONSE.encode(event));
+
+        assertEquals(event.getJobId(), decoded.getJobId());
+        assertEquals(500, decoded.getFirstRow());
+        assertEquals(event.getStatuses(), decoded.getStatuses());
+    }
+}